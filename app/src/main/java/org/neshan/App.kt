@@ -2,6 +2,20 @@ package org.neshan
 
 import androidx.multidex.MultiDexApplication
 import dagger.hilt.android.HiltAndroidApp
+import org.neshan.data.network.ConnectionWarmer
+import javax.inject.Inject
 
 @HiltAndroidApp
-class App : MultiDexApplication()
\ No newline at end of file
+class App : MultiDexApplication() {
+
+    @Inject
+    lateinit var connectionWarmer: ConnectionWarmer
+
+    override fun onCreate() {
+        super.onCreate()
+
+        // connect to api server in background to speed up first requests
+        connectionWarmer.warmUp()
+    }
+
+}
@@ -6,14 +6,18 @@ import static org.neshan.navigation.NavigationActivity.EXTRA_START_POINT;
 import android.app.Dialog;
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.content.res.ColorStateList;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
@@ -95,12 +99,27 @@ public class LocationDetailBottomSheet extends BottomSheetDialogFragment {
             }
         });
 
+        // routes of all routing types are already loaded, switching is instant
+        mBinding.carOption.setOnClickListener(view1 -> mSharedViewModel.selectRoutingType(RoutingType.CAR));
+        mBinding.motorcycleOption.setOnClickListener(view1 -> mSharedViewModel.selectRoutingType(RoutingType.MOTORCYCLE));
+
     }
 
     private void observeViewModelChange(MainViewModel viewModel) {
 
-        // load direction (here by default for car)
-        viewModel.loadDirection(RoutingType.CAR);
+        // load direction for all routing types
+        viewModel.loadDirections();
+
+        viewModel.getRouteOptionsLiveData().observe(getViewLifecycleOwner(), routeOptions -> {
+            showRouteOption(mBinding.carOption, routeOptions.get(RoutingType.CAR));
+            showRouteOption(mBinding.motorcycleOption, routeOptions.get(RoutingType.MOTORCYCLE));
+        });
+
+        viewModel.getSelectedRoutingTypeLiveData().observe(getViewLifecycleOwner(), routingType -> {
+            setRouteOptionSelected(mBinding.carOption, routingType == RoutingType.CAR);
+            setRouteOptionSelected(mBinding.motorcycleOption, routingType == RoutingType.MOTORCYCLE);
+            mBinding.distanceIcon.setImageResource(routingType == RoutingType.MOTORCYCLE ? R.drawable.ic_motorcycle : R.drawable.ic_car);
+        });
 
         viewModel.getRoutingDetailLiveData().observe(getViewLifecycleOwner(), routingDetail -> {
             if (routingDetail != null) {
@@ -119,6 +138,25 @@ public class LocationDetailBottomSheet extends BottomSheetDialogFragment {
 
     }
 
+    private void showRouteOption(TextView view, @Nullable RouteOption routeOption) {
+        Leg leg = routeOption != null ? routeOption.getLeg() : null;
+        if (routeOption != null && routeOption.isSuccessful() && leg != null) {
+            view.setEnabled(true);
+            view.setText(getString(R.string.route_option_detail, leg.getDistance().getText(), leg.getDuration().getText()));
+        } else {
+            view.setEnabled(false);
+            view.setText(R.string.route_option_not_available);
+        }
+    }
+
+    private void setRouteOptionSelected(TextView view, boolean selected) {
+        view.setBackgroundResource(selected ? R.drawable.bg_radius_primary_25 : R.drawable.btn_gray_light);
+        view.setTextColor(ContextCompat.getColor(requireContext(), selected ? R.color.colorWhite : R.color.colorGrayDark));
+        TextViewCompat.setCompoundDrawableTintList(view, ColorStateList.valueOf(
+                ContextCompat.getColor(requireContext(), selected ? R.color.colorWhite : R.color.colorPrimary)
+        ));
+    }
+
     private void showNavigationActivity() {
 
         Intent intent = new Intent(requireActivity(), NavigationActivity.class);
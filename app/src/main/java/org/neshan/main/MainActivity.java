@@ -40,13 +40,13 @@ import org.neshan.common.model.LatLngBounds;
 import org.neshan.component.location.BoundLocationManager;
 import org.neshan.component.location.LocationListener;
 import org.neshan.component.util.FunctionExtensionKt;
+import org.neshan.data.model.SimplifiedRouteGeometry;
 import org.neshan.data.network.Result;
 import org.neshan.data.util.EventObserver;
 import org.neshan.databinding.ActivityMainBinding;
 import org.neshan.mapsdk.model.Marker;
 import org.neshan.mapsdk.model.Polyline;
 
-import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
 import dagger.hilt.android.AndroidEntryPoint;
@@ -71,6 +71,14 @@ public class MainActivity extends AppCompatActivity implements LocationListener
     // poly line for the path from start point to end point on map
     private Polyline mRoutingPathPolyLine;
 
+    // shown path and its drawn simplification level, path is redrawn when zoom level changes
+    private SimplifiedRouteGeometry mRoutingPath = null;
+    private int mRoutingPathLevel = -1;
+
+    // points camera is fitted to, path may be redrawn for same points as it gets more detailed
+    private LatLng mFittedStartPoint = null;
+    private LatLng mFittedEndPoint = null;
+
     // observing choose location results
     private final ActivityResultLauncher<Intent> mStartChooseLocationForResult = this.registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
 
@@ -100,6 +108,9 @@ public class MainActivity extends AppCompatActivity implements LocationListener
 
         setUpLocationManager();
 
+        // camera listener is not called on main thread
+        mBinding.mapview.setOnCameraMoveListener(() -> runOnUiThread(this::onMapZoomChange));
+
     }
 
     @Override
@@ -216,6 +227,9 @@ public class MainActivity extends AppCompatActivity implements LocationListener
         if (mRoutingPathPolyLine != null) {
             mBinding.mapview.removePolyline(mRoutingPathPolyLine);
         }
+        mRoutingPath = null;
+        mFittedStartPoint = null;
+        mFittedEndPoint = null;
 
         focusOnLocation(mViewModel.getStartPoint());
     }
@@ -305,18 +319,26 @@ public class MainActivity extends AppCompatActivity implements LocationListener
     }
 
     /**
-     * creates path from calculated points for direction path and shows as poly line on map
+     * creates path from calculated points for direction path and shows as poly line on map,
+     * camera is moved to show whole path only when a new path is shown
      */
-    private void showPathOnMap(ArrayList<LatLng> routePoints) {
+    private void showPathOnMap(SimplifiedRouteGeometry routingPath) {
 
-        if (mRoutingPathPolyLine != null) {
-            mBinding.mapview.removePolyline(mRoutingPathPolyLine);
+        mRoutingPath = routingPath;
+        drawPath(routingPath);
+
+        LatLng startPoint = mViewModel.getStartPoint();
+        LatLng endPoint = mViewModel.getEndPoint();
+        if (mFittedStartPoint != null && mFittedEndPoint != null
+                && FunctionExtensionKt.equalsTo(mFittedStartPoint, startPoint)
+                && FunctionExtensionKt.equalsTo(mFittedEndPoint, endPoint)) {
+            return;
         }
-        mRoutingPathPolyLine = new Polyline(routePoints, getLineStyle());
-        mBinding.mapview.addPolyline(mRoutingPathPolyLine);
+        mFittedStartPoint = startPoint;
+        mFittedEndPoint = endPoint;
 
         // setup map camera to show whole path
-        LatLngBounds latLngBounds = new LatLngBounds(mViewModel.getStartPoint(), mViewModel.getEndPoint());
+        LatLngBounds latLngBounds = new LatLngBounds(startPoint, endPoint);
         int mapWidth = Math.min(mBinding.mapview.getWidth(), mBinding.mapview.getHeight());
         ScreenBounds screenBounds = new ScreenBounds(
                 new ScreenPos(0, 0),
@@ -326,6 +348,28 @@ public class MainActivity extends AppCompatActivity implements LocationListener
         mBinding.mapview.moveToCameraBounds(latLngBounds, screenBounds, true, 0.5f);
     }
 
+    /**
+     * draws path simplified for current zoom level
+     */
+    private void drawPath(SimplifiedRouteGeometry routingPath) {
+
+        float zoom = mBinding.mapview.getZoom();
+        mRoutingPathLevel = routingPath.getLevel(zoom);
+
+        if (mRoutingPathPolyLine != null) {
+            mBinding.mapview.removePolyline(mRoutingPathPolyLine);
+        }
+        mRoutingPathPolyLine = FunctionExtensionKt.toPolyline(routingPath.getGeometry(zoom), getLineStyle());
+        mBinding.mapview.addPolyline(mRoutingPathPolyLine);
+
+    }
+
+    private void onMapZoomChange() {
+        if (mRoutingPath != null && mRoutingPath.getLevel(mBinding.mapview.getZoom()) != mRoutingPathLevel) {
+            drawPath(mRoutingPath);
+        }
+    }
+
     private LineStyle getLineStyle() {
         LineStyleBuilder lineStCr = new LineStyleBuilder();
         Color color = new Color(ContextCompat.getColor(this, R.color.colorPrimaryDim75));
@@ -1,45 +1,89 @@
 package org.neshan.main;
 
 import org.neshan.common.model.LatLng;
+import org.neshan.data.cache.RouteCache;
 import org.neshan.data.model.enums.RoutingType;
 import org.neshan.data.model.response.AddressDetailResponse;
 import org.neshan.data.model.response.RoutingResponse;
 import org.neshan.data.network.ApiClient;
+import org.neshan.data.network.RequestPriority;
+import org.neshan.data.network.RequestScheduler;
+import org.neshan.data.network.RetryPolicy;
+import org.neshan.data.repository.AddressRepository;
+import org.neshan.data.session.RouteSession;
 
 import javax.inject.Inject;
 
 import io.reactivex.rxjava3.core.Single;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class MainModel {
 
     private final ApiClient mApiClient;
 
+    private final RequestScheduler mRequestScheduler;
+
+    private final AddressRepository mAddressRepository;
+
+    private final RouteCache mRouteCache;
+
+    private final RouteSession mRouteSession;
+
     @Inject
-    public MainModel(ApiClient apiClient) {
+    public MainModel(ApiClient apiClient, RequestScheduler requestScheduler, AddressRepository addressRepository, RouteCache routeCache, RouteSession routeSession) {
         this.mApiClient = apiClient;
+        this.mRequestScheduler = requestScheduler;
+        this.mAddressRepository = addressRepository;
+        this.mRouteCache = routeCache;
+        this.mRouteSession = routeSession;
     }
 
     /**
-     * loads address detail for specific location from api service
+     * loads address detail for specific location, answers from cache or persistent store if a
+     * nearby location is already resolved, otherwise from api service
      */
     public Single<AddressDetailResponse> getAddress(double latitude, double longitude) {
 
-        return mApiClient.getAddress(latitude, longitude)
-                .subscribeOn(Schedulers.io());
+        return mAddressRepository.getAddress(latitude, longitude);
 
     }
 
     /**
-     * loads routes from start point to end point from api service
+     * loads routes from start point to end point, answers from cache if same route is loaded recently
+     * otherwise from api service
      */
     public Single<RoutingResponse> getDirection(RoutingType routType, LatLng start, LatLng end, int bearing) {
 
+        RoutingResponse cachedResponse = mRouteCache.get(routType, start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude(), bearing);
+        if (cachedResponse != null) {
+            return Single.just(cachedResponse);
+        }
+
         String startPoint = start.getLatitude() + "," + start.getLongitude();
         String endPoint = end.getLatitude() + "," + end.getLongitude();
 
-        return mApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing)
-                .subscribeOn(Schedulers.io());
+        Single<RoutingResponse> request = mApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing);
+
+        return mRequestScheduler.schedule(RequestPriority.ROUTE_PREVIEW, request)
+                .compose(RetryPolicy.DEFAULT.<RoutingResponse>apply())
+                .doOnSuccess(response -> {
+                    if (response.isSuccessFull()) {
+                        mRouteCache.put(routType, start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude(), bearing, response);
+                    }
+                });
+
+    }
+
+    /**
+     * keeps previewed route, so navigation starts from it without loading it again
+     */
+    public void setPreviewedRoute(RoutingType routType, LatLng start, LatLng end, RoutingResponse response) {
+
+        mRouteSession.setPreviewedRoute(
+                routType,
+                new org.neshan.data.model.LatLng(start.getLatitude(), start.getLongitude()),
+                new org.neshan.data.model.LatLng(end.getLatitude(), end.getLongitude()),
+                response
+        );
 
     }
 
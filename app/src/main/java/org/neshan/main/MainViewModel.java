@@ -9,27 +9,35 @@ import androidx.lifecycle.MutableLiveData;
 
 import org.neshan.R;
 import org.neshan.common.model.LatLng;
-import org.neshan.common.utils.PolylineEncoding;
 import org.neshan.component.util.FunctionExtensionKt;
+import org.neshan.data.AppConfig;
+import org.neshan.data.model.RouteGeometry;
+import org.neshan.data.model.SimplifiedRouteGeometry;
 import org.neshan.data.network.Result;
 import org.neshan.data.model.enums.RoutingType;
 import org.neshan.data.model.error.GeneralError;
 import org.neshan.data.model.error.SimpleError;
 import org.neshan.data.model.response.AddressDetailResponse;
-import org.neshan.data.model.response.Route;
+import org.neshan.data.model.response.Leg;
 import org.neshan.data.model.response.RoutingResponse;
 import org.neshan.data.model.response.Step;
 import org.neshan.data.util.Event;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.lifecycle.HiltViewModel;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.core.SingleObserver;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 @HiltViewModel
 public class MainViewModel extends AndroidViewModel {
@@ -47,8 +55,19 @@ public class MainViewModel extends AndroidViewModel {
     // calculated path for selected start and end points
     private final MutableLiveData<RoutingResponse> mRoutingDetail;
 
-    // points for showing direction path on map
-    private final MutableLiveData<ArrayList<LatLng>> mRoutePoints;
+    // geometry for showing direction path on map, simplified for zoom levels
+    private final MutableLiveData<SimplifiedRouteGeometry> mRoutePoints;
+
+    // loaded routes of all routing types
+    private final MutableLiveData<Map<RoutingType, RouteOption>> mRouteOptions;
+
+    // routing type of shown route
+    private final MutableLiveData<RoutingType> mSelectedRoutingTypeLiveData;
+
+    private volatile RoutingType mSelectedRoutingType = RoutingType.CAR;
+
+    // decodes step geometries of shown route in background
+    private Disposable mRouteDecodeDisposable = null;
 
     // navigation start point
     private LatLng mStartPoint = null;
@@ -65,6 +84,8 @@ public class MainViewModel extends AndroidViewModel {
         mLocationAddressDetail = new MutableLiveData<>();
         mRoutingDetail = new MutableLiveData<>();
         mRoutePoints = new MutableLiveData<>();
+        mRouteOptions = new MutableLiveData<>();
+        mSelectedRoutingTypeLiveData = new MutableLiveData<>();
 
     }
 
@@ -80,10 +101,18 @@ public class MainViewModel extends AndroidViewModel {
         return mRoutingDetail;
     }
 
-    public LiveData<ArrayList<LatLng>> getRoutePoints() {
+    public LiveData<SimplifiedRouteGeometry> getRoutePoints() {
         return mRoutePoints;
     }
 
+    public LiveData<Map<RoutingType, RouteOption>> getRouteOptionsLiveData() {
+        return mRouteOptions;
+    }
+
+    public LiveData<RoutingType> getSelectedRoutingTypeLiveData() {
+        return mSelectedRoutingTypeLiveData;
+    }
+
     public LatLng getStartPoint() {
         return mStartPoint;
     }
@@ -131,9 +160,10 @@ public class MainViewModel extends AndroidViewModel {
     }
 
     /**
-     * try to load direction detail from server
+     * loads routes of all routing types at the same time, so switching between them
+     * does not need any further request
      */
-    public void loadDirection(RoutingType routingType) {
+    public void loadDirections() {
         if (mStartPoint == null) {
             SimpleError error = new SimpleError(getApplication().getString(R.string.start_point_not_selected));
             mGeneralError.postValue(new Event<>(error));
@@ -141,48 +171,198 @@ public class MainViewModel extends AndroidViewModel {
             SimpleError error = new SimpleError(getApplication().getString(R.string.end_point_not_selected));
             mGeneralError.postValue(new Event<>(error));
         } else {
-            mModel.getDirection(routingType, mStartPoint, mEndPoint, 0)
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(new SingleObserver<>() {
-                        @Override
-                        public void onSubscribe(Disposable disposable) {
-                            mCompositeDisposable.add(disposable);
-                        }
+            LatLng startPoint = mStartPoint;
+            LatLng endPoint = mEndPoint;
+
+            List<Single<RouteOption>> requests = new ArrayList<>();
+            for (RoutingType routingType : RoutingType.values()) {
+                requests.add(loadRouteOption(routingType, startPoint, endPoint));
+            }
+
+            // results are passed to view by posting live data values
+            Single.zip(requests, results -> {
+                EnumMap<RoutingType, RouteOption> routeOptions = new EnumMap<>(RoutingType.class);
+                for (Object result : results) {
+                    RouteOption routeOption = (RouteOption) result;
+                    routeOptions.put(routeOption.getRoutingType(), routeOption);
+                }
+                return routeOptions;
+            }).subscribe(new SingleObserver<>() {
+                @Override
+                public void onSubscribe(Disposable disposable) {
+                    mCompositeDisposable.add(disposable);
+                }
+
+                @Override
+                public void onSuccess(EnumMap<RoutingType, RouteOption> routeOptions) {
+                    onRouteOptionsLoaded(routeOptions);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    mGeneralError.postValue(new Event<>(FunctionExtensionKt.getError(e)));
+                }
+            });
+        }
+    }
+
+    /**
+     * shows already loaded route of routing type
+     */
+    public void selectRoutingType(RoutingType routingType) {
+        Map<RoutingType, RouteOption> routeOptions = mRouteOptions.getValue();
+        RouteOption routeOption = routeOptions != null ? routeOptions.get(routingType) : null;
+        if (routeOption != null && routeOption.isSuccessful()) {
+            showRouteOption(routeOption);
+        }
+    }
+
+    /**
+     * loads route of a routing type, only overview polyline is decoded (on io thread too) so
+     * route can be drawn right away. failure is returned as route option so other routing types
+     * can still be shown
+     */
+    private Single<RouteOption> loadRouteOption(RoutingType routingType, LatLng startPoint, LatLng endPoint) {
+        return mModel.getDirection(routingType, startPoint, endPoint, 0)
+                .subscribeOn(Schedulers.io())
+                .map(response -> {
+                    RouteGeometry overviewGeometry = RouteGeometry.fromEncodedPolyline(
+                            response.getRoutes().get(0).getOverviewPolyline().getEncodedPolyline()
+                    );
+                    return RouteOption.success(routingType, startPoint, endPoint, response, overviewGeometry);
+                })
+                .onErrorReturn(error -> RouteOption.error(routingType, startPoint, endPoint, error));
+    }
 
-                        @Override
-                        public void onSuccess(RoutingResponse response) {
-                            if (response.getRoutes() != null) {
+    private void onRouteOptionsLoaded(EnumMap<RoutingType, RouteOption> routeOptions) {
+        mRouteOptions.postValue(routeOptions);
+
+        // keep selected routing type if its route is loaded, otherwise select first loaded one
+        RouteOption selectedOption = routeOptions.get(mSelectedRoutingType);
+        if (selectedOption == null || !selectedOption.isSuccessful()) {
+            selectedOption = null;
+            for (RouteOption routeOption : routeOptions.values()) {
+                if (routeOption.isSuccessful()) {
+                    selectedOption = routeOption;
+                    break;
+                }
+            }
+        }
 
-                                mRoutingDetail.postValue(response);
+        if (selectedOption != null) {
+            showRouteOption(selectedOption);
+        } else {
+            Throwable error = routeOptions.get(mSelectedRoutingType).getError();
+            if (error instanceof NullPointerException || error instanceof IndexOutOfBoundsException) {
+                mGeneralError.postValue(new Event<>(new SimpleError(getApplication().getString(R.string.routing_failure))));
+            } else {
+                mGeneralError.postValue(new Event<>(FunctionExtensionKt.getError(error)));
+            }
+        }
+    }
 
-                                try {
-                                    Route route = response.getRoutes().get(0);
+    private synchronized void showRouteOption(RouteOption routeOption) {
+        mSelectedRoutingType = routeOption.getRoutingType();
+        mSelectedRoutingTypeLiveData.postValue(routeOption.getRoutingType());
+        mRoutingDetail.postValue(routeOption.getResponse());
 
-//                                    List<LatLng> routeOverviewPolylinePoints = PolylineEncoding.decode(
-//                                            route.getOverviewPolyline().getEncodedPolyline()
-//                                    );
-//                                    mRoutePoints.postValue(new ArrayList<>(routeOverviewPolylinePoints));
+        // previous route is not shown anymore
+        if (mRouteDecodeDisposable != null) {
+            mCompositeDisposable.remove(mRouteDecodeDisposable);
+            mRouteDecodeDisposable = null;
+        }
 
-                                    ArrayList<LatLng> decodedStepByStepPath = new ArrayList<>();
-                                    for (Step step : route.getLegs().get(0).getSteps()) {
-                                        decodedStepByStepPath.addAll(PolylineEncoding.decode(step.getEncodedPolyline()));
-                                    }
+        if (routeOption.getSimplifiedGeometry() != null) {
+            mRoutePoints.postValue(routeOption.getSimplifiedGeometry());
+        } else {
+            // overview is shown first and replaced by detailed path as steps are decoded
+            mRoutePoints.postValue(SimplifiedRouteGeometry.unsimplified(routeOption.getOverviewGeometry()));
+            decodeRoutePoints(routeOption);
+        }
 
-                                    mRoutePoints.postValue(decodedStepByStepPath);
-                                } catch (NullPointerException exception) {
-                                    SimpleError error = new SimpleError(getApplication().getString(R.string.routing_failure));
-                                    mGeneralError.postValue(new Event<>(error));
-                                    exception.printStackTrace();
-                                }
-                            }
-                        }
+        // navigation starts with selected route
+        mModel.setPreviewedRoute(
+                routeOption.getRoutingType(),
+                routeOption.getStartPoint(),
+                routeOption.getEndPoint(),
+                routeOption.getResponse()
+        );
+    }
 
-                        @Override
-                        public void onError(Throwable e) {
-                            mGeneralError.postValue(new Event<>(FunctionExtensionKt.getError(e)));
-                        }
-                    });
+    /**
+     * decodes steps of route in background starting from route start, path made of decoded
+     * steps and rest of overview polyline is posted after each chunk. chunks grow twice in
+     * size, so near part of route is detailed soon and total copying stays linear. complete
+     * path is simplified for zoom levels before it is posted
+     */
+    private void decodeRoutePoints(RouteOption routeOption) {
+        Leg leg = routeOption.getLeg();
+        RouteGeometry overviewGeometry = routeOption.getOverviewGeometry();
+        if (leg == null || overviewGeometry == null) {
+            return;
+        }
+
+        Observable<SimplifiedRouteGeometry> paths = Observable.create(emitter -> {
+            List<Step> steps = leg.getSteps();
+            RouteGeometry.Builder builder = new RouteGeometry.Builder(overviewGeometry.getSize());
+            int chunkSize = AppConfig.ROUTE_DECODE_FIRST_CHUNK_POINT_COUNT;
+            int chunkPointCount = 0;
+            int overviewIndex = 0;
+
+            for (int i = 0; i < steps.size() && !emitter.isDisposed(); i++) {
+                // preview may never be navigated, so steps are not decoded into their own arrays
+                Step step = steps.get(i);
+                int previousSize = builder.getSize();
+                builder.addStep(step);
+
+                chunkPointCount += builder.getSize() - previousSize;
+                if (chunkPointCount >= chunkSize && i < steps.size() - 1 && !overviewGeometry.isEmpty()) {
+                    // decoded part is not copied by builder, it is only copied once into path
+                    RouteGeometry decodedGeometry = builder.build();
+                    overviewIndex = findNearestPoint(overviewGeometry, decodedGeometry, overviewIndex);
+                    RouteGeometry path = new RouteGeometry.Builder(decodedGeometry.getSize() + overviewGeometry.getSize() - overviewIndex)
+                            .addGeometry(decodedGeometry)
+                            .addGeometry(overviewGeometry, overviewIndex + 1)
+                            .build();
+                    emitter.onNext(SimplifiedRouteGeometry.unsimplified(path));
+
+                    chunkPointCount = 0;
+                    chunkSize *= 2;
+                }
+            }
+
+            SimplifiedRouteGeometry simplifiedGeometry = SimplifiedRouteGeometry.create(builder.build());
+            routeOption.setSimplifiedGeometry(simplifiedGeometry);
+            emitter.onNext(simplifiedGeometry);
+            emitter.onComplete();
+        });
+
+        mRouteDecodeDisposable = paths
+                .subscribeOn(Schedulers.computation())
+                .subscribe(mRoutePoints::postValue, error -> mGeneralError.postValue(new Event<>(FunctionExtensionKt.getError(error))));
+        mCompositeDisposable.add(mRouteDecodeDisposable);
+    }
+
+    /**
+     * finds index of overview point nearest to last point of decoded geometry from index onwards,
+     * comparing squared degree differences is enough here
+     */
+    private static int findNearestPoint(RouteGeometry overviewGeometry, RouteGeometry decodedGeometry, int fromIndex) {
+        double latitude = decodedGeometry.getLatitude(decodedGeometry.getSize() - 1);
+        double longitude = decodedGeometry.getLongitude(decodedGeometry.getSize() - 1);
+
+        int nearestIndex = fromIndex;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int index = fromIndex; index < overviewGeometry.getSize(); index++) {
+            double latitudeDifference = overviewGeometry.getLatitude(index) - latitude;
+            double longitudeDifference = overviewGeometry.getLongitude(index) - longitude;
+            double distance = latitudeDifference * latitudeDifference + longitudeDifference * longitudeDifference;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestIndex = index;
+            }
         }
+        return nearestIndex;
     }
 
     @Override
@@ -0,0 +1,116 @@
+package org.neshan.main;
+
+import androidx.annotation.Nullable;
+
+import org.neshan.common.model.LatLng;
+import org.neshan.data.model.RouteGeometry;
+import org.neshan.data.model.SimplifiedRouteGeometry;
+import org.neshan.data.model.enums.RoutingType;
+import org.neshan.data.model.response.Leg;
+import org.neshan.data.model.response.RoutingResponse;
+
+import java.util.List;
+
+/**
+ * loaded route of a routing type between start and end points, holds error if route could not be loaded
+ */
+public class RouteOption {
+
+    private final RoutingType mRoutingType;
+
+    private final LatLng mStartPoint;
+
+    private final LatLng mEndPoint;
+
+    @Nullable
+    private final RoutingResponse mResponse;
+
+    // simplified path of first route, available as soon as route is loaded
+    @Nullable
+    private final RouteGeometry mOverviewGeometry;
+
+    // detailed path of first route with zoom level simplifications, set when its steps are decoded
+    @Nullable
+    private volatile SimplifiedRouteGeometry mSimplifiedGeometry = null;
+
+    @Nullable
+    private final Throwable mError;
+
+    private RouteOption(RoutingType routingType, LatLng startPoint, LatLng endPoint, @Nullable RoutingResponse response,
+                        @Nullable RouteGeometry overviewGeometry, @Nullable Throwable error) {
+        this.mRoutingType = routingType;
+        this.mStartPoint = startPoint;
+        this.mEndPoint = endPoint;
+        this.mResponse = response;
+        this.mOverviewGeometry = overviewGeometry;
+        this.mError = error;
+    }
+
+    public static RouteOption success(RoutingType routingType, LatLng startPoint, LatLng endPoint,
+                                      RoutingResponse response, RouteGeometry overviewGeometry) {
+        return new RouteOption(routingType, startPoint, endPoint, response, overviewGeometry, null);
+    }
+
+    public static RouteOption error(RoutingType routingType, LatLng startPoint, LatLng endPoint, Throwable error) {
+        return new RouteOption(routingType, startPoint, endPoint, null, null, error);
+    }
+
+    public boolean isSuccessful() {
+        return mResponse != null && mOverviewGeometry != null;
+    }
+
+    public RoutingType getRoutingType() {
+        return mRoutingType;
+    }
+
+    public LatLng getStartPoint() {
+        return mStartPoint;
+    }
+
+    public LatLng getEndPoint() {
+        return mEndPoint;
+    }
+
+    @Nullable
+    public RoutingResponse getResponse() {
+        return mResponse;
+    }
+
+    @Nullable
+    public RouteGeometry getOverviewGeometry() {
+        return mOverviewGeometry;
+    }
+
+    /**
+     * detailed path, null until steps are decoded and simplified
+     */
+    @Nullable
+    public SimplifiedRouteGeometry getSimplifiedGeometry() {
+        return mSimplifiedGeometry;
+    }
+
+    public void setSimplifiedGeometry(SimplifiedRouteGeometry simplifiedGeometry) {
+        mSimplifiedGeometry = simplifiedGeometry;
+    }
+
+    @Nullable
+    public Throwable getError() {
+        return mError;
+    }
+
+    /**
+     * first leg of first route, null if route is not loaded or has no leg
+     */
+    @Nullable
+    public Leg getLeg() {
+        if (mResponse == null || mResponse.getRoutes() == null || mResponse.getRoutes().isEmpty()) {
+            return null;
+        }
+        List<Leg> legs = mResponse.getRoutes().get(0).getLegs();
+        if (legs == null || legs.isEmpty()) {
+            return null;
+        }
+        return legs.get(0);
+    }
+
+}
@@ -4,13 +4,15 @@ import android.graphics.Bitmap
 import android.graphics.Canvas
 import android.graphics.drawable.BitmapDrawable
 import android.graphics.drawable.Drawable
-import android.location.Location
 import android.view.View
+import com.carto.styles.LineStyle
 import org.neshan.common.model.LatLng
 import org.neshan.component.R
 import org.neshan.component.view.snackbar.SnackBar
 import org.neshan.component.view.snackbar.SnackBarType
+import org.neshan.data.model.RouteGeometry
 import org.neshan.data.model.error.*
+import org.neshan.mapsdk.model.Polyline
 import retrofit2.HttpException
 import java.net.SocketException
 import java.net.SocketTimeoutException
@@ -81,21 +83,26 @@ fun showError(rootView: View, error: GeneralError) {
 }
 
 /**
- * calculates distance to target point
+ * point of route geometry as map LatLng
  * */
-fun LatLng.distanceFrom(latLng: LatLng): FloatArray {
+fun RouteGeometry.getPoint(index: Int): LatLng {
 
-    val distanceResult = FloatArray(3)
+    return LatLng(getLatitude(index), getLongitude(index))
 
-    Location.distanceBetween(
-        this.latitude,
-        this.longitude,
-        latLng.latitude,
-        latLng.longitude,
-        distanceResult
-    )
+}
+
+/**
+ * creates map poly line for route geometry, map sdk only accepts list of points so
+ * point objects are created here right before drawing
+ * */
+fun RouteGeometry.toPolyline(lineStyle: LineStyle?): Polyline {
+
+    val points = ArrayList<LatLng>(size)
+    for (index in 0 until size) {
+        points.add(getPoint(index))
+    }
 
-    return distanceResult;
+    return Polyline(points, lineStyle)
 
 }
 
@@ -0,0 +1,160 @@
+package org.neshan.component.util
+
+import kotlin.math.abs
+import kotlin.math.asin
+import kotlin.math.atan
+import kotlin.math.atan2
+import kotlin.math.cos
+import kotlin.math.min
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlin.math.tan
+
+/**
+ * distance and bearing between coordinates in degrees, pure kotlin so it runs on jvm tests.
+ * functions take primitives and allocate nothing, so they can be called per gps fix and per
+ * route point. errors are relative to the WGS84 ellipsoid distance:
+ *
+ * - [Mode.EQUIRECTANGULAR]: flat projection at mean latitude, cheapest. on top of the 0.5%
+ * sphere error it adds about 1e-4 relative error for 10 km at tehran latitude, growing with
+ * square of distance, so use it for distances up to a few kilometers (gps fixes, route segments)
+ * - [Mode.HAVERSINE]: great circle on a sphere of mean earth radius, up to 0.5% error (usually
+ * under 0.3%) at any distance
+ * - [Mode.VINCENTY]: iterative inverse solution on the ellipsoid, below 1 mm like
+ * Location.distanceBetween. falls back to haversine for nearly antipodal points which do not converge
+ * */
+object Geodesic {
+
+    enum class Mode { EQUIRECTANGULAR, HAVERSINE, VINCENTY }
+
+    // mean earth radius (IUGG)
+    const val EARTH_RADIUS_IN_METERS = 6_371_008.8
+
+    // WGS84 ellipsoid
+    private const val SEMI_MAJOR_AXIS_IN_METERS = 6_378_137.0
+    private const val FLATTENING = 1 / 298.257223563
+    private const val SEMI_MINOR_AXIS_IN_METERS = SEMI_MAJOR_AXIS_IN_METERS * (1 - FLATTENING)
+
+    private const val VINCENTY_MAX_ITERATIONS = 100
+    private const val VINCENTY_CONVERGENCE_THRESHOLD = 1e-12
+
+    /**
+     * distance in meters
+     * */
+    @JvmStatic
+    @JvmOverloads
+    fun distance(
+        latitude1: Double,
+        longitude1: Double,
+        latitude2: Double,
+        longitude2: Double,
+        mode: Mode = Mode.EQUIRECTANGULAR
+    ): Double {
+        return when (mode) {
+            Mode.EQUIRECTANGULAR -> equirectangular(latitude1, longitude1, latitude2, longitude2)
+            Mode.HAVERSINE -> haversine(latitude1, longitude1, latitude2, longitude2)
+            Mode.VINCENTY -> vincenty(latitude1, longitude1, latitude2, longitude2)
+        }
+    }
+
+    /**
+     * initial great circle bearing in degrees clockwise from north, between 0 and 360
+     * */
+    @JvmStatic
+    fun bearing(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+        val phi1 = Math.toRadians(latitude1)
+        val phi2 = Math.toRadians(latitude2)
+        val deltaLambda = Math.toRadians(longitude2 - longitude1)
+        val y = sin(deltaLambda) * cos(phi2)
+        val x = cos(phi1) * sin(phi2) - sin(phi1) * cos(phi2) * cos(deltaLambda)
+        return (Math.toDegrees(atan2(y, x)) + 360) % 360
+    }
+
+    @JvmStatic
+    fun equirectangular(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+        val x = Math.toRadians(normalizeLongitude(longitude2 - longitude1)) *
+                cos(Math.toRadians((latitude1 + latitude2) / 2))
+        val y = Math.toRadians(latitude2 - latitude1)
+        return EARTH_RADIUS_IN_METERS * sqrt(x * x + y * y)
+    }
+
+    @JvmStatic
+    fun haversine(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+        val phi1 = Math.toRadians(latitude1)
+        val phi2 = Math.toRadians(latitude2)
+        val sinHalfDeltaPhi = sin((phi2 - phi1) / 2)
+        val sinHalfDeltaLambda = sin(Math.toRadians(longitude2 - longitude1) / 2)
+        val a = sinHalfDeltaPhi * sinHalfDeltaPhi + cos(phi1) * cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda
+        return 2 * EARTH_RADIUS_IN_METERS * asin(min(1.0, sqrt(a)))
+    }
+
+    @JvmStatic
+    fun vincenty(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+        val l = Math.toRadians(normalizeLongitude(longitude2 - longitude1))
+        val u1 = atan((1 - FLATTENING) * tan(Math.toRadians(latitude1)))
+        val u2 = atan((1 - FLATTENING) * tan(Math.toRadians(latitude2)))
+        val sinU1 = sin(u1)
+        val cosU1 = cos(u1)
+        val sinU2 = sin(u2)
+        val cosU2 = cos(u2)
+
+        var lambda = l
+        var sinSigma: Double
+        var cosSigma: Double
+        var sigma: Double
+        var cosSquaredAlpha: Double
+        var cos2SigmaM: Double
+        var iteration = 0
+        while (true) {
+            val sinLambda = sin(lambda)
+            val cosLambda = cos(lambda)
+            val t1 = cosU2 * sinLambda
+            val t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda
+            sinSigma = sqrt(t1 * t1 + t2 * t2)
+            if (sinSigma == 0.0) {
+                // coincident points
+                return 0.0
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda
+            sigma = atan2(sinSigma, cosSigma)
+            val sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma
+            cosSquaredAlpha = 1 - sinAlpha * sinAlpha
+            // on equator cosSquaredAlpha is 0
+            cos2SigmaM = if (cosSquaredAlpha != 0.0) cosSigma - 2 * sinU1 * sinU2 / cosSquaredAlpha else 0.0
+            val c = FLATTENING / 16 * cosSquaredAlpha * (4 + FLATTENING * (4 - 3 * cosSquaredAlpha))
+            val previousLambda = lambda
+            lambda = l + (1 - c) * FLATTENING * sinAlpha *
+                    (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)))
+
+            if (abs(lambda - previousLambda) < VINCENTY_CONVERGENCE_THRESHOLD) {
+                break
+            }
+            if (++iteration >= VINCENTY_MAX_ITERATIONS) {
+                return haversine(latitude1, longitude1, latitude2, longitude2)
+            }
+        }
+
+        val uSquared = cosSquaredAlpha * (SEMI_MAJOR_AXIS_IN_METERS * SEMI_MAJOR_AXIS_IN_METERS -
+                SEMI_MINOR_AXIS_IN_METERS * SEMI_MINOR_AXIS_IN_METERS) /
+                (SEMI_MINOR_AXIS_IN_METERS * SEMI_MINOR_AXIS_IN_METERS)
+        val a = 1 + uSquared / 16384 * (4096 + uSquared * (-768 + uSquared * (320 - 175 * uSquared)))
+        val b = uSquared / 1024 * (256 + uSquared * (-128 + uSquared * (74 - 47 * uSquared)))
+        val deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM) -
+                b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)))
+
+        return SEMI_MINOR_AXIS_IN_METERS * a * (sigma - deltaSigma)
+    }
+
+    /**
+     * longitude difference between -180 and 180, so routes crossing antimeridian are not measured
+     * around the earth
+     * */
+    private fun normalizeLongitude(longitude: Double): Double {
+        return when {
+            longitude > 180 -> longitude - 360
+            longitude < -180 -> longitude + 360
+            else -> longitude
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.neshan.component.util
+
+import org.neshan.data.model.RouteGeometry
+
+/**
+ * distance and bearing tables of a route, computed once when route is loaded so remaining
+ * distance, progress and heading of route at a point are array lookups while navigating.
+ * [getDistanceTo] keeps prefix sums of segment lengths and [getBearing] bearings of segments
+ * */
+class RouteMetrics(geometry: RouteGeometry) {
+
+    companion object {
+
+        @JvmField
+        val EMPTY = RouteMetrics(RouteGeometry.EMPTY)
+
+    }
+
+    // distance from first point to each point of route in meters
+    private val mDistances = DoubleArray(geometry.size)
+
+    // bearing of segment starting from each point, last point repeats bearing of last segment
+    private val mBearings = FloatArray(geometry.size)
+
+    val size: Int
+        get() = mDistances.size
+
+    val totalDistance: Double
+        get() = if (mDistances.isEmpty()) 0.0 else mDistances[mDistances.size - 1]
+
+    init {
+        for (index in 1 until geometry.size) {
+            val latitude1 = geometry.getLatitude(index - 1)
+            val longitude1 = geometry.getLongitude(index - 1)
+            val latitude2 = geometry.getLatitude(index)
+            val longitude2 = geometry.getLongitude(index)
+            // computed once per route, so the more accurate spherical distance is affordable
+            mDistances[index] = mDistances[index - 1] +
+                    Geodesic.distance(latitude1, longitude1, latitude2, longitude2, Geodesic.Mode.HAVERSINE)
+            mBearings[index - 1] = Geodesic.bearing(latitude1, longitude1, latitude2, longitude2).toFloat()
+        }
+        if (geometry.size >= 2) {
+            mBearings[geometry.size - 1] = mBearings[geometry.size - 2]
+        }
+    }
+
+    /**
+     * distance along route from first point to point at [index] in meters
+     * */
+    fun getDistanceTo(index: Int): Double = mDistances[index]
+
+    /**
+     * distance along route from point at [index] to last point in meters
+     * */
+    fun getRemainingDistance(index: Int): Double = totalDistance - mDistances[index]
+
+    /**
+     * length of segment from point at [index] to next point in meters
+     * */
+    fun getSegmentLength(index: Int): Double = mDistances[index + 1] - mDistances[index]
+
+    /**
+     * passed fraction of route length at point [index], between 0 and 1
+     * */
+    fun getProgress(index: Int): Float {
+        val totalDistance = totalDistance
+        return if (totalDistance > 0) (mDistances[index] / totalDistance).toFloat() else 1f
+    }
+
+    /**
+     * bearing of route at point [index] in degrees clockwise from north
+     * */
+    fun getBearing(index: Int): Float = mBearings[index]
+
+}
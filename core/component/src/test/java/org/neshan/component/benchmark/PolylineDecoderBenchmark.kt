@@ -0,0 +1,58 @@
+package org.neshan.component.benchmark
+
+import org.neshan.common.model.LatLng
+import org.neshan.common.utils.PolylineEncoding
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.util.PolylineDecoder
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * decodes all steps of Tehran route fixtures into one route path, the way view models build
+ * route paths: with sdk decoder into a list of points and with our decoder into packed arrays
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class PolylineDecoderBenchmark {
+
+    private lateinit var mRoutes: List<List<String>>
+
+    @Setup
+    fun setUp() {
+        mRoutes = TehranRouteFixtures.load()
+    }
+
+    @Benchmark
+    fun sdkDecoder(blackhole: Blackhole) {
+        mRoutes.forEach { steps ->
+            val routePoints = ArrayList<LatLng>()
+            steps.forEach { step -> routePoints.addAll(PolylineEncoding.decode(step)) }
+            blackhole.consume(routePoints)
+        }
+    }
+
+    @Benchmark
+    fun decodeIntoGrowableBuffer(blackhole: Blackhole) {
+        mRoutes.forEach { steps ->
+            val builder = RouteGeometry.Builder(16)
+            steps.forEach { step -> builder.addEncodedPolyline(step) }
+            blackhole.consume(builder.build())
+        }
+    }
+
+    @Benchmark
+    fun decodeIntoPreallocatedArray(blackhole: Blackhole) {
+        mRoutes.forEach { steps ->
+            val points = DoubleArray(steps.sumOf { step -> PolylineDecoder.countPoints(step) } * 2)
+            var offset = 0
+            steps.forEach { step -> offset += PolylineDecoder.decodeInto(step, points, offset) }
+            blackhole.consume(points)
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.neshan.component.benchmark
+
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.neshan.common.utils.PolylineEncoding
+import org.neshan.data.model.RouteGeometry
+import org.openjdk.jmh.runner.Runner
+import org.openjdk.jmh.runner.options.OptionsBuilder
+
+class PolylineDecoderBenchmarkTest {
+
+    @Test
+    fun decoders_returnSamePoints() {
+
+        assumeTrue(TehranRouteFixtures.isRecorded())
+
+        TehranRouteFixtures.load().forEach { steps ->
+            val builder = RouteGeometry.Builder(16)
+            val expectedPoints = steps.flatMap { step ->
+                builder.addEncodedPolyline(step)
+                PolylineEncoding.decode(step)
+            }
+            val geometry = builder.build()
+
+            assertEquals(expectedPoints.size, geometry.size)
+            expectedPoints.forEachIndexed { index, point ->
+                assertEquals(point.latitude, geometry.getLatitude(index), 1E-9)
+                assertEquals(point.longitude, geometry.getLongitude(index), 1E-9)
+            }
+        }
+
+    }
+
+    /**
+     * runs jmh benchmark, takes about half a minute so it only runs when RUN_BENCHMARKS
+     * environment variable is set
+     * */
+    @Test
+    fun runBenchmark() {
+
+        assumeTrue(System.getenv("RUN_BENCHMARKS") != null)
+        assumeTrue(TehranRouteFixtures.isRecorded())
+
+        val options = OptionsBuilder()
+            .include(PolylineDecoderBenchmark::class.java.simpleName)
+            .addProfiler("gc")
+            .build()
+        Runner(options).run()
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.neshan.component.benchmark
+
+import java.io.File
+
+/**
+ * encoded step polylines of routes along Tehran streets, recorded from direction api responses
+ * into test resources by [TehranRouteFixturesRecorderTest]
+ * */
+object TehranRouteFixtures {
+
+    private const val FILE_NAME = "tehran_routes.txt"
+
+    // unit tests run in module directory
+    val FILE = File("src/test/resources/$FILE_NAME")
+
+    /**
+     * origin and destination of a recorded route as "latitude,longitude"
+     * */
+    class RouteRequest(val name: String, val origin: String, val destination: String)
+
+    val ROUTE_REQUESTS = listOf(
+        RouteRequest("Azadi Square to Ferdowsi Square (Azadi, Enghelab)", "35.69975,51.33806", "35.70190,51.42065"),
+        RouteRequest("Rah Ahan Square to Tajrish Square (Valiasr)", "35.65892,51.39542", "35.80454,51.43377"),
+        RouteRequest("Haft-e Tir Square to Tajrish (Modarres)", "35.71530,51.42630", "35.80454,51.43377")
+    )
+
+    /**
+     * checks fixtures are recorded, recording needs an api key so fresh checkouts may not have them
+     * */
+    fun isRecorded(): Boolean = TehranRouteFixtures::class.java.getResource("/$FILE_NAME") != null
+
+    /**
+     * step polylines of each route
+     * */
+    fun load(): List<List<String>> {
+        val stream = TehranRouteFixtures::class.java.getResourceAsStream("/$FILE_NAME")
+            ?: throw IllegalStateException("$FILE_NAME not found, record it with TehranRouteFixturesRecorderTest")
+
+        val routes = ArrayList<ArrayList<String>>()
+        stream.bufferedReader().useLines { lines ->
+            lines.forEach { line ->
+                when {
+                    line.startsWith("##") -> routes.add(ArrayList())
+                    line.isNotBlank() && !line.startsWith("#") -> routes.last().add(line)
+                }
+            }
+        }
+        return routes
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.neshan.component.benchmark
+
+import com.google.gson.JsonParser
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.neshan.data.AppConfig
+import org.neshan.data.network.ApiClient
+import java.net.HttpURLConnection
+import java.net.URL
+import java.net.URLEncoder
+
+class TehranRouteFixturesRecorderTest {
+
+    /**
+     * requests routes of [TehranRouteFixtures.ROUTE_REQUESTS] from direction api and writes
+     * their step polylines as they are into test resources. needs network and an api key, so it
+     * only runs when RECORD_ROUTE_FIXTURES and NESHAN_API_KEY environment variables are set
+     * */
+    @Test
+    fun recordRoutes() {
+
+        assumeTrue(System.getenv("RECORD_ROUTE_FIXTURES") != null)
+        val apiKey = System.getenv("NESHAN_API_KEY")
+        assumeTrue(apiKey != null)
+
+        val fixtures = StringBuilder()
+            .append("# step polylines of routes along Tehran streets, recorded from car routes of\n")
+            .append("# ${ApiClient.ENDPOINT_DIRECTION} responses by TehranRouteFixturesRecorderTest.\n")
+            .append("# one encoded step polyline per line, routes are separated by a line with\n")
+            .append("# route name starting with \"##\"\n")
+
+        TehranRouteFixtures.ROUTE_REQUESTS.forEach { request ->
+            fixtures.append("\n## ").append(request.name).append('\n')
+            getStepPolylines(request, apiKey!!).forEach { polyline -> fixtures.append(polyline).append('\n') }
+        }
+
+        TehranRouteFixtures.FILE.parentFile?.mkdirs()
+        TehranRouteFixtures.FILE.writeText(fixtures.toString())
+
+    }
+
+    private fun getStepPolylines(request: TehranRouteFixtures.RouteRequest, apiKey: String): List<String> {
+        val url = URL(
+            AppConfig.API_URL + ApiClient.ENDPOINT_DIRECTION +
+                    "?type=car" +
+                    "&origin=" + URLEncoder.encode(request.origin, "UTF-8") +
+                    "&destination=" + URLEncoder.encode(request.destination, "UTF-8")
+        )
+        val connection = url.openConnection() as HttpURLConnection
+        try {
+            connection.setRequestProperty("Api-Key", apiKey)
+            if (connection.responseCode != HttpURLConnection.HTTP_OK) {
+                throw IllegalStateException("${request.name}: http ${connection.responseCode}")
+            }
+
+            val response = connection.inputStream.bufferedReader().use { reader ->
+                JsonParser.parseReader(reader).asJsonObject
+            }
+            return response.getAsJsonArray("routes")[0].asJsonObject
+                .getAsJsonArray("legs")[0].asJsonObject
+                .getAsJsonArray("steps")
+                .map { step -> step.asJsonObject.get("polyline").asString }
+        } finally {
+            connection.disconnect()
+        }
+    }
+
+}
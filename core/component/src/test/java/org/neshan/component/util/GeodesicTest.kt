@@ -0,0 +1,90 @@
+package org.neshan.component.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.abs
+
+class GeodesicTest {
+
+    @Test
+    fun vincenty_matchesReferenceDistance() {
+
+        // flinders peak to buninyong, reference solution of vincenty's paper
+        val distance = Geodesic.vincenty(-37.95103342, 144.42486789, -37.65282114, 143.92649554)
+
+        assertEquals(54_972.271, distance, 0.001)
+
+    }
+
+    @Test
+    fun vincenty_handlesCoincidentAndEquatorialPoints() {
+
+        assertEquals(0.0, Geodesic.vincenty(35.7, 51.4, 35.7, 51.4), 0.0)
+        // one degree of longitude on equator is 1/360 of equator length
+        assertEquals(111_319.491, Geodesic.vincenty(0.0, 0.0, 0.0, 1.0), 0.001)
+
+    }
+
+    @Test
+    fun vincenty_fallsBackToHaversineForAntipodalPoints() {
+
+        val distance = Geodesic.vincenty(0.0, 0.0, 0.5, 179.7)
+
+        assertEquals(Geodesic.haversine(0.0, 0.0, 0.5, 179.7), distance, 0.0)
+
+    }
+
+    @Test
+    fun haversine_staysInSphereErrorBound() {
+
+        for (bearing in 0 until 360 step 15) {
+            val radians = Math.toRadians(bearing.toDouble())
+            val latitude = 35.7 + 0.5 * Math.cos(radians)
+            val longitude = 51.4 + 0.5 * Math.sin(radians)
+
+            val exact = Geodesic.vincenty(35.7, 51.4, latitude, longitude)
+            val haversine = Geodesic.haversine(35.7, 51.4, latitude, longitude)
+
+            assertTrue("bearing $bearing", abs(haversine - exact) / exact < 0.005)
+        }
+
+    }
+
+    @Test
+    fun equirectangular_isCloseToHaversineForShortDistances() {
+
+        for (bearing in 0 until 360 step 15) {
+            val radians = Math.toRadians(bearing.toDouble())
+            // about 10 km from tehran
+            val latitude = 35.7 + 0.09 * Math.cos(radians)
+            val longitude = 51.4 + 0.09 * Math.sin(radians)
+
+            val haversine = Geodesic.haversine(35.7, 51.4, latitude, longitude)
+            val equirectangular = Geodesic.equirectangular(35.7, 51.4, latitude, longitude)
+
+            assertTrue("bearing $bearing", abs(equirectangular - haversine) / haversine < 1e-4)
+        }
+
+    }
+
+    @Test
+    fun equirectangular_crossesAntimeridian() {
+
+        val distance = Geodesic.equirectangular(0.0, 179.99, 0.0, -179.99)
+
+        assertEquals(Geodesic.haversine(0.0, 179.99, 0.0, -179.99), distance, 0.01)
+
+    }
+
+    @Test
+    fun bearing_isClockwiseFromNorth() {
+
+        assertEquals(0.0, Geodesic.bearing(35.70, 51.40, 35.71, 51.40), 1e-9)
+        assertEquals(90.0, Geodesic.bearing(35.70, 51.40, 35.70, 51.41), 0.01)
+        assertEquals(180.0, Geodesic.bearing(35.70, 51.40, 35.69, 51.40), 1e-9)
+        assertEquals(270.0, Geodesic.bearing(35.70, 51.40, 35.70, 51.39), 0.01)
+
+    }
+
+}
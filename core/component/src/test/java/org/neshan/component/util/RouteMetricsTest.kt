@@ -0,0 +1,57 @@
+package org.neshan.component.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.neshan.data.model.RouteGeometry
+
+class RouteMetricsTest {
+
+    // north for 0.01 degree, then east for 0.01 degree
+    private val mGeometry = RouteGeometry(
+        doubleArrayOf(
+            35.70, 51.40,
+            35.71, 51.40,
+            35.71, 51.41
+        )
+    )
+
+    @Test
+    fun distances_arePrefixSumsOfSegmentLengths() {
+
+        val metrics = RouteMetrics(mGeometry)
+
+        // 0.01 degree of latitude is about 1112 meters
+        assertEquals(1111.95, metrics.getSegmentLength(0), 0.1)
+        // 0.01 degree of longitude is shorter by cos(latitude)
+        assertEquals(1111.95 * Math.cos(Math.toRadians(35.71)), metrics.getSegmentLength(1), 0.5)
+
+        assertEquals(0.0, metrics.getDistanceTo(0), 0.0)
+        assertEquals(metrics.getSegmentLength(0), metrics.getDistanceTo(1), 1e-9)
+        assertEquals(metrics.totalDistance, metrics.getDistanceTo(2), 1e-9)
+        assertEquals(metrics.getSegmentLength(1), metrics.getRemainingDistance(1), 1e-9)
+        assertEquals(0f, metrics.getProgress(0), 0f)
+        assertEquals(1f, metrics.getProgress(2), 0f)
+
+    }
+
+    @Test
+    fun bearings_areClockwiseFromNorth() {
+
+        val metrics = RouteMetrics(mGeometry)
+
+        assertEquals(0f, metrics.getBearing(0), 0.01f)
+        assertEquals(90f, metrics.getBearing(1), 0.01f)
+        // last point keeps bearing of last segment
+        assertEquals(metrics.getBearing(1), metrics.getBearing(2), 0f)
+
+    }
+
+    @Test
+    fun emptyRoute_hasNoDistance() {
+
+        assertEquals(0, RouteMetrics.EMPTY.size)
+        assertEquals(0.0, RouteMetrics.EMPTY.totalDistance, 0.0)
+
+    }
+
+}
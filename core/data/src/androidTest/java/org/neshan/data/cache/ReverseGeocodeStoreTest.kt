@@ -0,0 +1,97 @@
+package org.neshan.data.cache
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.neshan.data.model.response.AddressDetailResponse
+import kotlin.math.cos
+
+@RunWith(AndroidJUnit4::class)
+class ReverseGeocodeStoreTest {
+
+    companion object {
+        private const val LATITUDE = 35.7
+        private const val LONGITUDE = 51.4
+
+        private const val METERS_PER_DEGREE = 111_320.0
+    }
+
+    // access times increase by one on every read, so eviction order does not depend on timing
+    private var mTime = 0L
+
+    // in memory database with room for three addresses within 25 meters
+    private val mStore = ReverseGeocodeStore(
+        InstrumentationRegistry.getInstrumentation().targetContext,
+        null,
+        3,
+        25.0
+    ) { ++mTime }
+
+    @After
+    fun tearDown() {
+        mStore.close()
+    }
+
+    private fun north(meters: Double) = LATITUDE + meters / METERS_PER_DEGREE
+
+    private fun east(meters: Double) = LONGITUDE + meters / (METERS_PER_DEGREE * cos(Math.toRadians(LATITUDE)))
+
+    private fun findAddress(latitude: Double, longitude: Double): String? {
+        return mStore.findNearest(latitude, longitude)?.address
+    }
+
+    @Test
+    fun findNearest_matchesOnlyWithinRadius() {
+
+        mStore.put(LATITUDE, LONGITUDE, AddressDetailResponse(address = "Azadi"))
+
+        assertEquals("Azadi", findAddress(north(24.0), LONGITUDE))
+        assertEquals("Azadi", findAddress(LATITUDE, east(24.0)))
+        assertNull(findAddress(north(26.0), LONGITUDE))
+        assertNull(findAddress(LATITUDE, east(26.0)))
+
+    }
+
+    @Test
+    fun findNearest_returnsNearestCandidate() {
+
+        mStore.put(north(20.0), LONGITUDE, AddressDetailResponse(address = "Enghelab"))
+        mStore.put(LATITUDE, east(5.0), AddressDetailResponse(address = "Azadi"))
+        mStore.put(north(-15.0), LONGITUDE, AddressDetailResponse(address = "Navab"))
+
+        assertEquals("Azadi", findAddress(LATITUDE, LONGITUDE))
+        assertEquals("Enghelab", findAddress(north(18.0), LONGITUDE))
+
+    }
+
+    @Test
+    fun put_overMaxSize_removesLeastRecentlyUsed() {
+
+        // addresses far enough from each other not to match each other's location
+        mStore.put(north(0.0), LONGITUDE, AddressDetailResponse(address = "1"))
+        mStore.put(north(100.0), LONGITUDE, AddressDetailResponse(address = "2"))
+        mStore.put(north(200.0), LONGITUDE, AddressDetailResponse(address = "3"))
+
+        // reading first address makes second one least recently used
+        assertEquals("1", findAddress(north(0.0), LONGITUDE))
+        mStore.put(north(300.0), LONGITUDE, AddressDetailResponse(address = "4"))
+
+        assertNull(findAddress(north(100.0), LONGITUDE))
+        assertEquals("1", findAddress(north(0.0), LONGITUDE))
+        assertEquals("3", findAddress(north(200.0), LONGITUDE))
+        assertEquals("4", findAddress(north(300.0), LONGITUDE))
+
+        // reads above were in order 1, 3, 4, so first address is least recently used now
+        mStore.put(north(400.0), LONGITUDE, AddressDetailResponse(address = "5"))
+        assertNull(findAddress(north(0.0), LONGITUDE))
+        assertEquals("3", findAddress(north(200.0), LONGITUDE))
+        assertEquals("4", findAddress(north(300.0), LONGITUDE))
+        assertEquals("5", findAddress(north(400.0), LONGITUDE))
+
+    }
+
+}
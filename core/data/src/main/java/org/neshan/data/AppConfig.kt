@@ -7,4 +7,53 @@ object AppConfig {
 
     const val API_URL = "https://api.neshan.org/"
 
-}
\ No newline at end of file
+    // http response cache
+    const val HTTP_CACHE_DIRECTORY = "http_cache"
+    const val HTTP_CACHE_SIZE_IN_BYTES = 10L * 1024 * 1024 // 10 MB
+    const val REVERSE_GEOCODE_CACHE_MAX_AGE_IN_SECONDS = 6 * 60 * 60 // 6 hours
+    const val DIRECTION_CACHE_MAX_AGE_IN_SECONDS = 5 * 60 // 5 minutes
+    const val HTTP_CACHE_MAX_STALE_IN_SECONDS = 7 * 24 * 60 * 60 // 7 days
+
+    // connections to api server
+    const val CONNECTION_WARM_UP_ENABLED = false // opt-in, costs a request on every app start
+    const val CONNECTION_POOL_MAX_IDLE_CONNECTIONS = 5
+    const val CONNECTION_KEEP_ALIVE_IN_MINUTES = 5L // idle connections are not pinged, so they cost no traffic
+
+    // in-memory reverse geocode cache
+    const val REVERSE_GEOCODE_CACHE_PRECISION = 8 // geohash cells of about 38m x 19m
+    const val REVERSE_GEOCODE_CACHE_MAX_ENTRIES = 200
+
+    // persistent reverse geocode store
+    const val REVERSE_GEOCODE_STORE_NAME = "reverse_geocode.db"
+    const val REVERSE_GEOCODE_STORE_MAX_ENTRIES = 1000 // about 500 bytes per entry
+    const val REVERSE_GEOCODE_STORE_RADIUS_IN_METERS = 25.0
+
+    // in-memory route cache
+    const val ROUTE_CACHE_SNAP_IN_DEGREES = 0.0001 // about 11 meters
+    const val ROUTE_CACHE_BEARING_BUCKET_IN_DEGREES = 45
+    const val ROUTE_CACHE_TTL_IN_SECONDS = 5 * 60 // 5 minutes
+    const val ROUTE_CACHE_MAX_SIZE_IN_BYTES = 4L * 1024 * 1024 // 4 MB
+
+    // speculative routes from likely wrong turns while navigating
+    const val REROUTE_PREFETCH_DEPTH = 2 // upcoming decision points
+    const val REROUTE_PREFETCH_BUDGET = 10 // requests per route
+    const val REROUTE_PREFETCH_OVERSHOOT_IN_METERS = 40.0
+
+    // offline reverse geocoder, used when network is not available
+    const val OFFLINE_GEOCODER_DATASET = "street_segments.bin"
+    const val OFFLINE_GEOCODER_MAX_DISTANCE_IN_METERS = 100.0
+
+    // route geometry decoding, route preview draws overview polyline first then decodes steps in chunks
+    const val ROUTE_DECODE_FIRST_CHUNK_POINT_COUNT = 256 // next chunks grow twice in size
+    const val ROUTE_DECODE_PARALLEL_MIN_POINT_COUNT = 4000 // shorter routes are decoded on one thread
+
+    // route simplification for zoomed out map, full route is drawn from max zoom
+    const val ROUTE_SIMPLIFICATION_MIN_ZOOM = 5
+    const val ROUTE_SIMPLIFICATION_MAX_ZOOM = 17
+    const val ROUTE_SIMPLIFICATION_TOLERANCE_IN_PIXELS = 1.0
+
+    // offline routing, used when network is not available
+    const val OFFLINE_ROUTING_GRAPH = "road_graph.bin"
+    const val OFFLINE_ROUTING_MAX_SNAP_DISTANCE_IN_METERS = 300.0
+
+}
@@ -0,0 +1,59 @@
+package org.neshan.data.cache
+
+/**
+ * geohash encoding, nearby points share a common prefix. each extra character makes the
+ * cell 4 to 8 times smaller (precision 7 ~ 150m, 8 ~ 38m x 19m, 9 ~ 5m)
+ * */
+object Geohash {
+
+    private const val BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz"
+
+    const val MAX_PRECISION = 12
+
+    fun encode(latitude: Double, longitude: Double, precision: Int): String {
+        require(precision in 1..MAX_PRECISION) { "precision must be between 1 and $MAX_PRECISION" }
+
+        var minLatitude = -90.0
+        var maxLatitude = 90.0
+        var minLongitude = -180.0
+        var maxLongitude = 180.0
+
+        val hash = CharArray(precision)
+        var isLongitudeBit = true
+        var bit = 0
+        var character = 0
+        var index = 0
+
+        while (index < precision) {
+            if (isLongitudeBit) {
+                val middle = (minLongitude + maxLongitude) / 2
+                if (longitude >= middle) {
+                    character = (character shl 1) or 1
+                    minLongitude = middle
+                } else {
+                    character = character shl 1
+                    maxLongitude = middle
+                }
+            } else {
+                val middle = (minLatitude + maxLatitude) / 2
+                if (latitude >= middle) {
+                    character = (character shl 1) or 1
+                    minLatitude = middle
+                } else {
+                    character = character shl 1
+                    maxLatitude = middle
+                }
+            }
+            isLongitudeBit = !isLongitudeBit
+
+            if (++bit == 5) {
+                hash[index++] = BASE32[character]
+                bit = 0
+                character = 0
+            }
+        }
+
+        return String(hash)
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.neshan.data.cache
+
+import org.neshan.data.AppConfig
+import org.neshan.data.model.response.AddressDetailResponse
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * in-memory LRU cache for reverse geocode results. locations are quantized to geohash cells
+ * so nearby points (which most likely have the same address) share one entry
+ * @param precision: geohash length used as key, see [Geohash]
+ * @param maxSize: maximum number of cached addresses, least recently used one is removed first
+ * */
+@Singleton
+class ReverseGeocodeCache(
+    private val precision: Int,
+    private val maxSize: Int
+) {
+
+    @Inject
+    constructor() : this(
+        AppConfig.REVERSE_GEOCODE_CACHE_PRECISION,
+        AppConfig.REVERSE_GEOCODE_CACHE_MAX_ENTRIES
+    )
+
+    private val mEntries = object : LinkedHashMap<String, AddressDetailResponse>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, AddressDetailResponse>?): Boolean {
+            return size > maxSize
+        }
+    }
+
+    private var mHitCount = 0
+
+    private var mMissCount = 0
+
+    @Synchronized
+    fun get(latitude: Double, longitude: Double): AddressDetailResponse? {
+        val address = mEntries[getKey(latitude, longitude)]
+        if (address != null) mHitCount++ else mMissCount++
+        return address
+    }
+
+    @Synchronized
+    fun put(latitude: Double, longitude: Double, address: AddressDetailResponse) {
+        mEntries[getKey(latitude, longitude)] = address
+    }
+
+    @Synchronized
+    fun size(): Int = mEntries.size
+
+    @Synchronized
+    fun clear() {
+        mEntries.clear()
+    }
+
+    @Synchronized
+    fun hitCount(): Int = mHitCount
+
+    @Synchronized
+    fun missCount(): Int = mMissCount
+
+    /**
+     * ratio of lookups answered by cache, a value between 0 and 1
+     * */
+    @Synchronized
+    fun hitRate(): Float {
+        val lookupCount = mHitCount + mMissCount
+        return if (lookupCount > 0) mHitCount.toFloat() / lookupCount else 0f
+    }
+
+    private fun getKey(latitude: Double, longitude: Double): String {
+        return Geohash.encode(latitude, longitude, precision)
+    }
+
+}
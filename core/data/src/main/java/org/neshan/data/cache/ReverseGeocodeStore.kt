@@ -0,0 +1,158 @@
+package org.neshan.data.cache
+
+import android.content.ContentValues
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteOpenHelper
+import com.google.gson.Gson
+import com.google.gson.JsonParseException
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.neshan.data.AppConfig
+import org.neshan.data.model.response.AddressDetailResponse
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.cos
+import kotlin.math.sqrt
+
+/**
+ * persistent reverse geocode results which survive process restarts. rows are indexed by
+ * latitude, lookups scan a bounding box around the location and return the nearest address
+ * within [radius]. number of rows is limited to [maxSize], least recently used rows are
+ * removed first
+ * note: database is accessed synchronously, do not call from main thread
+ * */
+@Singleton
+class ReverseGeocodeStore(
+    context: Context,
+    name: String?,
+    private val maxSize: Int,
+    private val radius: Double,
+    // wall clock, access times are compared across process restarts
+    private val clock: () -> Long
+) : SQLiteOpenHelper(context, name, null, DATABASE_VERSION) {
+
+    @Inject
+    constructor(@ApplicationContext context: Context) : this(
+        context,
+        AppConfig.REVERSE_GEOCODE_STORE_NAME,
+        AppConfig.REVERSE_GEOCODE_STORE_MAX_ENTRIES,
+        AppConfig.REVERSE_GEOCODE_STORE_RADIUS_IN_METERS,
+        System::currentTimeMillis
+    )
+
+    private val mGson = Gson()
+
+    override fun onCreate(db: SQLiteDatabase) {
+        db.execSQL(
+            "CREATE TABLE $TABLE_ADDRESS (" +
+                    "$COLUMN_ID INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "$COLUMN_LATITUDE REAL NOT NULL, " +
+                    "$COLUMN_LONGITUDE REAL NOT NULL, " +
+                    "$COLUMN_RESPONSE TEXT NOT NULL, " +
+                    "$COLUMN_LAST_ACCESS INTEGER NOT NULL)"
+        )
+        db.execSQL("CREATE INDEX index_address_location ON $TABLE_ADDRESS ($COLUMN_LATITUDE, $COLUMN_LONGITUDE)")
+        db.execSQL("CREATE INDEX index_address_last_access ON $TABLE_ADDRESS ($COLUMN_LAST_ACCESS)")
+    }
+
+    override fun onUpgrade(db: SQLiteDatabase, oldVersion: Int, newVersion: Int) {
+        // stored data is only a cache, so it is safe to drop it
+        db.execSQL("DROP TABLE IF EXISTS $TABLE_ADDRESS")
+        onCreate(db)
+    }
+
+    /**
+     * finds nearest stored address to location, returns null if there is no address within [radius]
+     * */
+    fun findNearest(latitude: Double, longitude: Double): AddressDetailResponse? {
+        val latitudeDelta = radius / METERS_PER_DEGREE
+        val longitudeDelta = latitudeDelta / cos(Math.toRadians(latitude)).coerceAtLeast(0.01)
+
+        var nearestId = -1L
+        var nearestDistance = Double.MAX_VALUE
+        var nearestResponse: String? = null
+
+        readableDatabase.query(
+            TABLE_ADDRESS,
+            arrayOf(COLUMN_ID, COLUMN_LATITUDE, COLUMN_LONGITUDE, COLUMN_RESPONSE),
+            "$COLUMN_LATITUDE BETWEEN ? AND ? AND $COLUMN_LONGITUDE BETWEEN ? AND ?",
+            arrayOf(
+                (latitude - latitudeDelta).toString(), (latitude + latitudeDelta).toString(),
+                (longitude - longitudeDelta).toString(), (longitude + longitudeDelta).toString()
+            ),
+            null, null, null
+        ).use { cursor ->
+            while (cursor.moveToNext()) {
+                val distance = getDistance(latitude, longitude, cursor.getDouble(1), cursor.getDouble(2))
+                if (distance <= radius && distance < nearestDistance) {
+                    nearestId = cursor.getLong(0)
+                    nearestDistance = distance
+                    nearestResponse = cursor.getString(3)
+                }
+            }
+        }
+
+        val response = nearestResponse ?: return null
+
+        val values = ContentValues()
+        values.put(COLUMN_LAST_ACCESS, clock())
+        writableDatabase.update(TABLE_ADDRESS, values, "$COLUMN_ID = ?", arrayOf(nearestId.toString()))
+
+        return try {
+            mGson.fromJson(response, AddressDetailResponse::class.java)
+        } catch (e: JsonParseException) {
+            null
+        }
+    }
+
+    /**
+     * stores address of location and removes least recently used addresses if store is full
+     * */
+    fun put(latitude: Double, longitude: Double, address: AddressDetailResponse) {
+        val values = ContentValues()
+        values.put(COLUMN_LATITUDE, latitude)
+        values.put(COLUMN_LONGITUDE, longitude)
+        values.put(COLUMN_RESPONSE, mGson.toJson(address))
+        values.put(COLUMN_LAST_ACCESS, clock())
+
+        val db = writableDatabase
+        db.beginTransaction()
+        try {
+            db.insert(TABLE_ADDRESS, null, values)
+            db.execSQL(
+                "DELETE FROM $TABLE_ADDRESS WHERE $COLUMN_ID NOT IN " +
+                        "(SELECT $COLUMN_ID FROM $TABLE_ADDRESS ORDER BY $COLUMN_LAST_ACCESS DESC LIMIT $maxSize)"
+            )
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+    }
+
+    fun clear() {
+        writableDatabase.delete(TABLE_ADDRESS, null, null)
+    }
+
+    /**
+     * equirectangular approximation, accurate enough for distances of a few hundred meters
+     * */
+    private fun getDistance(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Double {
+        val x = (longitude2 - longitude1) * cos(Math.toRadians((latitude1 + latitude2) / 2))
+        val y = latitude2 - latitude1
+        return sqrt(x * x + y * y) * METERS_PER_DEGREE
+    }
+
+    companion object {
+        private const val DATABASE_VERSION = 1
+
+        private const val TABLE_ADDRESS = "address"
+        private const val COLUMN_ID = "id"
+        private const val COLUMN_LATITUDE = "latitude"
+        private const val COLUMN_LONGITUDE = "longitude"
+        private const val COLUMN_RESPONSE = "response"
+        private const val COLUMN_LAST_ACCESS = "last_access"
+
+        private const val METERS_PER_DEGREE = 111_320.0
+    }
+
+}
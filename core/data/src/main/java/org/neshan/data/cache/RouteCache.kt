@@ -0,0 +1,182 @@
+package org.neshan.data.cache
+
+import org.neshan.data.AppConfig
+import org.neshan.data.model.enums.RoutingType
+import org.neshan.data.model.response.RoutingResponse
+import org.neshan.data.util.PolylineDecoder
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.roundToLong
+
+/**
+ * in-memory cache for decoded routes. start and end points are snapped to a grid and bearing
+ * to a bucket, so requests for (almost) the same trip share one entry. entries expire after
+ * [ttlMillis] and least recently used entries are removed when estimated size of cached routes
+ * exceeds [maxSizeInBytes]
+ * */
+@Singleton
+class RouteCache(
+    private val snapInDegrees: Double,
+    private val bearingBucketInDegrees: Int,
+    private val ttlMillis: Long,
+    private val maxSizeInBytes: Long,
+    private val clock: () -> Long
+) {
+
+    companion object {
+        private const val OBJECT_OVERHEAD_IN_BYTES = 64L
+
+        // step, its distance, duration and strings
+        private const val STEP_OVERHEAD_IN_BYTES = 256L
+    }
+
+    @Inject
+    constructor() : this(
+        AppConfig.ROUTE_CACHE_SNAP_IN_DEGREES,
+        AppConfig.ROUTE_CACHE_BEARING_BUCKET_IN_DEGREES,
+        TimeUnit.SECONDS.toMillis(AppConfig.ROUTE_CACHE_TTL_IN_SECONDS.toLong()),
+        AppConfig.ROUTE_CACHE_MAX_SIZE_IN_BYTES,
+        { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+    )
+
+    private data class Key(
+        val routingType: RoutingType,
+        val startLatitude: Long,
+        val startLongitude: Long,
+        val endLatitude: Long,
+        val endLongitude: Long,
+        val bearingBucket: Int
+    )
+
+    private class Entry(val response: RoutingResponse, val sizeInBytes: Long, val expireTime: Long)
+
+    private val mEntries = LinkedHashMap<Key, Entry>(16, 0.75f, true)
+
+    private var mSizeInBytes = 0L
+
+    private var mHitCount = 0
+
+    private var mMissCount = 0
+
+    @Synchronized
+    fun get(
+        routingType: RoutingType,
+        startLatitude: Double, startLongitude: Double,
+        endLatitude: Double, endLongitude: Double,
+        bearing: Int
+    ): RoutingResponse? {
+        val key = getKey(routingType, startLatitude, startLongitude, endLatitude, endLongitude, bearing)
+        val entry = mEntries[key]
+
+        if (entry != null && entry.expireTime <= clock()) {
+            remove(key)
+            mMissCount++
+            return null
+        }
+
+        if (entry != null) mHitCount++ else mMissCount++
+        return entry?.response
+    }
+
+    @Synchronized
+    fun put(
+        routingType: RoutingType,
+        startLatitude: Double, startLongitude: Double,
+        endLatitude: Double, endLongitude: Double,
+        bearing: Int,
+        response: RoutingResponse
+    ) {
+        val sizeInBytes = estimateSize(response)
+        if (sizeInBytes > maxSizeInBytes) {
+            return
+        }
+
+        val key = getKey(routingType, startLatitude, startLongitude, endLatitude, endLongitude, bearing)
+        remove(key)
+        mEntries[key] = Entry(response, sizeInBytes, clock() + ttlMillis)
+        mSizeInBytes += sizeInBytes
+
+        trimToSize()
+    }
+
+    @Synchronized
+    fun size(): Int = mEntries.size
+
+    /**
+     * estimated memory used by cached routes
+     * */
+    @Synchronized
+    fun sizeInBytes(): Long = mSizeInBytes
+
+    @Synchronized
+    fun clear() {
+        mEntries.clear()
+        mSizeInBytes = 0
+    }
+
+    @Synchronized
+    fun hitCount(): Int = mHitCount
+
+    @Synchronized
+    fun missCount(): Int = mMissCount
+
+    private fun remove(key: Key) {
+        val entry = mEntries.remove(key)
+        if (entry != null) {
+            mSizeInBytes -= entry.sizeInBytes
+        }
+    }
+
+    /**
+     * removes expired entries, then least recently used ones until cache fits in memory budget
+     * */
+    private fun trimToSize() {
+        val now = clock()
+        val iterator = mEntries.values.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.expireTime <= now || mSizeInBytes > maxSizeInBytes) {
+                iterator.remove()
+                mSizeInBytes -= entry.sizeInBytes
+            }
+        }
+    }
+
+    private fun getKey(
+        routingType: RoutingType,
+        startLatitude: Double, startLongitude: Double,
+        endLatitude: Double, endLongitude: Double,
+        bearing: Int
+    ): Key {
+        val normalizedBearing = ((bearing % 360) + 360) % 360
+        return Key(
+            routingType,
+            snap(startLatitude), snap(startLongitude),
+            snap(endLatitude), snap(endLongitude),
+            normalizedBearing / bearingBucketInDegrees
+        )
+    }
+
+    private fun snap(value: Double): Long = (value / snapInDegrees).roundToLong()
+
+    /**
+     * rough estimation of memory used by route once its steps are decoded, dominated by
+     * step geometries
+     * */
+    private fun estimateSize(response: RoutingResponse): Long {
+        var size = OBJECT_OVERHEAD_IN_BYTES
+        response.routes?.forEach { route ->
+            size += OBJECT_OVERHEAD_IN_BYTES + route.overviewPolyline.encodedPolyline.length * 2L
+            route.legs.forEach { leg ->
+                size += OBJECT_OVERHEAD_IN_BYTES + leg.summary.length * 2L
+                leg.steps.forEach { step ->
+                    size += STEP_OVERHEAD_IN_BYTES + PolylineDecoder.countPoints(step.encodedPolyline) * 16L +
+                            (step.encodedPolyline.length + step.name.length + step.instruction.length) * 2L
+                }
+            }
+        }
+        return size
+    }
+
+}
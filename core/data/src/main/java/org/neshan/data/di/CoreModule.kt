@@ -5,6 +5,7 @@ import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
 import org.neshan.data.network.ApiClient
+import org.neshan.data.network.CoalescingApiClient
 import org.neshan.data.network.RetrofitConfig
 import javax.inject.Singleton
 
@@ -20,11 +21,21 @@ object CoreModule {
 
     @Provides
     @Singleton
-    fun provideApiClient(retrofitConfig: RetrofitConfig): ApiClient {
+    @UncoalescedApiClient
+    fun provideUncoalescedApiClient(retrofitConfig: RetrofitConfig): ApiClient {
         retrofitConfig.initialize()
 
         return retrofitConfig.createService(ApiClient::class.java)
 
     }
 
-}
\ No newline at end of file
+    @Provides
+    @Singleton
+    fun provideApiClient(@UncoalescedApiClient apiClient: ApiClient): ApiClient {
+
+        // share identical in-flight requests instead of sending them again
+        return CoalescingApiClient(apiClient)
+
+    }
+
+}
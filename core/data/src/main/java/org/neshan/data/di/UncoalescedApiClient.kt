@@ -0,0 +1,11 @@
+package org.neshan.data.di
+
+import javax.inject.Qualifier
+
+/**
+ * qualifies the [org.neshan.data.network.ApiClient] which sends every call to server,
+ * without sharing in-flight requests (ie, for hedged requests)
+ * */
+@Qualifier
+@Retention(AnnotationRetention.BINARY)
+annotation class UncoalescedApiClient
@@ -0,0 +1,82 @@
+package org.neshan.data.geocoder
+
+import android.content.Context
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.neshan.data.AppConfig
+import org.neshan.data.model.response.AddressDetailResponse
+import java.io.File
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * resolves nearest street name and city of locations from on-device street segment dataset,
+ * used when api service is not reachable. dataset is opened on first lookup after it is
+ * installed, so a dataset downloaded while app is running is used without restart
+ * */
+@Singleton
+class OfflineGeocoder(
+    private val datasetFile: File,
+    private val maxDistanceInMeters: Double
+) {
+
+    @Inject
+    constructor(@ApplicationContext context: Context) : this(
+        File(context.filesDir, AppConfig.OFFLINE_GEOCODER_DATASET),
+        AppConfig.OFFLINE_GEOCODER_MAX_DISTANCE_IN_METERS
+    )
+
+    companion object {
+        private const val TAG = "OfflineGeocoder"
+        private const val NOT_FAILED = -1L
+    }
+
+    private var mIndex: StreetSegmentIndex? = null
+
+    // modification time of dataset file which failed to open, it is not opened again until replaced
+    private var mFailedDatasetModified = NOT_FAILED
+
+    /**
+     * checks dataset is available for lookups
+     * */
+    fun isAvailable(): Boolean = getIndex() != null
+
+    /**
+     * returns address of nearest street to location, null if dataset is not available or
+     * there is no street nearby
+     * */
+    fun getAddress(latitude: Double, longitude: Double): AddressDetailResponse? {
+        val index = getIndex() ?: return null
+
+        val segment = index.findNearestSegment(latitude, longitude, maxDistanceInMeters)
+        if (segment < 0) {
+            return null
+        }
+
+        val streetName = index.getStreetName(segment)
+        val city = index.getCity(segment)
+
+        return AddressDetailResponse(
+            city = city,
+            routeName = streetName,
+            address = listOf(city, streetName).filter { name -> name.isNotEmpty() }.joinToString("، ")
+        ).apply {
+            status = "OK"
+        }
+    }
+
+    @Synchronized
+    private fun getIndex(): StreetSegmentIndex? {
+        if (mIndex == null && datasetFile.exists() && datasetFile.lastModified() != mFailedDatasetModified) {
+            try {
+                mIndex = StreetSegmentIndex.open(datasetFile)
+            } catch (e: IOException) {
+                mFailedDatasetModified = datasetFile.lastModified()
+                Log.e(TAG, "failed to open offline geocoder dataset", e)
+            }
+        }
+        return mIndex
+    }
+
+}
@@ -0,0 +1,172 @@
+package org.neshan.data.geocoder
+
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import kotlin.math.ceil
+import kotlin.math.cos
+import kotlin.math.floor
+
+/**
+ * read-only street segment dataset with a uniform grid index. the file is memory mapped,
+ * so only pages touched by lookups are loaded. lookups do not allocate except for returned names
+ *
+ * file layout (little endian):
+ * - header: magic, version, segment count, string count, min latitude, min longitude,
+ *   cell size (degrees), grid rows, grid columns
+ * - segments: lat1, lng1, lat2, lng2 (float) and street name, city (string index)
+ * - cell offsets: start of each cell in cell entries (rows * columns + 1 ints)
+ * - cell entries: indices of segments intersecting each cell
+ * - string offsets (string count + 1 ints) and utf-8 string bytes
+ * */
+class StreetSegmentIndex(private val mBuffer: ByteBuffer) {
+
+    companion object {
+        const val MAGIC = 0x4E534731 // NSG1
+        const val VERSION = 1
+
+        const val HEADER_SIZE = 48
+        const val SEGMENT_SIZE = 24
+
+        const val METERS_PER_DEGREE = 111_320.0
+
+        /**
+         * memory maps dataset file
+         * @throws IOException if file can not be read or is not a valid dataset
+         * */
+        @Throws(IOException::class)
+        fun open(file: File): StreetSegmentIndex {
+            RandomAccessFile(file, "r").use { randomAccessFile ->
+                val channel = randomAccessFile.channel
+                return StreetSegmentIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+            }
+        }
+    }
+
+    val segmentCount: Int
+
+    private val mStringCount: Int
+    private val mMinLatitude: Double
+    private val mMinLongitude: Double
+    private val mCellSize: Double
+    private val mGridRows: Int
+    private val mGridColumns: Int
+
+    private val mSegmentsOffset: Int
+    private val mCellOffsetsOffset: Int
+    private val mCellEntriesOffset: Int
+    private val mStringOffsetsOffset: Int
+    private val mStringBytesOffset: Int
+
+    init {
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN)
+
+        if (mBuffer.capacity() < HEADER_SIZE || mBuffer.getInt(0) != MAGIC) {
+            throw IOException("invalid street segment dataset")
+        }
+        if (mBuffer.getInt(4) != VERSION) {
+            throw IOException("unsupported street segment dataset version ${mBuffer.getInt(4)}")
+        }
+
+        segmentCount = mBuffer.getInt(8)
+        mStringCount = mBuffer.getInt(12)
+        mMinLatitude = mBuffer.getDouble(16)
+        mMinLongitude = mBuffer.getDouble(24)
+        mCellSize = mBuffer.getDouble(32)
+        mGridRows = mBuffer.getInt(40)
+        mGridColumns = mBuffer.getInt(44)
+
+        mSegmentsOffset = HEADER_SIZE
+        mCellOffsetsOffset = mSegmentsOffset + segmentCount * SEGMENT_SIZE
+        mCellEntriesOffset = mCellOffsetsOffset + (mGridRows * mGridColumns + 1) * 4
+        mStringOffsetsOffset = mCellEntriesOffset + getCellOffset(mGridRows * mGridColumns) * 4
+        mStringBytesOffset = mStringOffsetsOffset + (mStringCount + 1) * 4
+
+        if (mStringBytesOffset + getStringOffset(mStringCount) > mBuffer.capacity()) {
+            throw IOException("truncated street segment dataset")
+        }
+    }
+
+    /**
+     * finds segment nearest to location
+     * @return index of segment or -1 if there is no segment within [maxDistanceInMeters]
+     * */
+    fun findNearestSegment(latitude: Double, longitude: Double, maxDistanceInMeters: Double): Int {
+        val longitudeScale = cos(Math.toRadians(latitude))
+        val maxDistance = maxDistanceInMeters / METERS_PER_DEGREE
+
+        // cells which may contain segments within max distance
+        val rowRadius = ceil(maxDistance / mCellSize).toInt()
+        val columnRadius = ceil(maxDistance / longitudeScale.coerceAtLeast(0.01) / mCellSize).toInt()
+        val row = floor((latitude - mMinLatitude) / mCellSize).toInt()
+        val column = floor((longitude - mMinLongitude) / mCellSize).toInt()
+
+        var nearestSegment = -1
+        // compared in squared degrees of latitude
+        var nearestDistance = maxDistance * maxDistance
+
+        for (cellRow in maxOf(row - rowRadius, 0)..minOf(row + rowRadius, mGridRows - 1)) {
+            for (cellColumn in maxOf(column - columnRadius, 0)..minOf(column + columnRadius, mGridColumns - 1)) {
+                val cell = cellRow * mGridColumns + cellColumn
+                for (entry in getCellOffset(cell) until getCellOffset(cell + 1)) {
+                    val segment = mBuffer.getInt(mCellEntriesOffset + entry * 4)
+                    val distance = getSquaredDistance(segment, latitude, longitude, longitudeScale)
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance
+                        nearestSegment = segment
+                    }
+                }
+            }
+        }
+
+        return nearestSegment
+    }
+
+    fun getStreetName(segment: Int): String = getString(mBuffer.getInt(getSegmentOffset(segment) + 16))
+
+    fun getCity(segment: Int): String = getString(mBuffer.getInt(getSegmentOffset(segment) + 20))
+
+    /**
+     * squared distance of point to segment on a local equirectangular projection
+     * */
+    private fun getSquaredDistance(segment: Int, latitude: Double, longitude: Double, longitudeScale: Double): Double {
+        val offset = getSegmentOffset(segment)
+        val x1 = (mBuffer.getFloat(offset + 4) - longitude) * longitudeScale
+        val y1 = mBuffer.getFloat(offset).toDouble() - latitude
+        val x2 = (mBuffer.getFloat(offset + 12) - longitude) * longitudeScale
+        val y2 = mBuffer.getFloat(offset + 8).toDouble() - latitude
+
+        // point is at origin, find closest point of segment to origin
+        val dx = x2 - x1
+        val dy = y2 - y1
+        val lengthSquared = dx * dx + dy * dy
+        val t = if (lengthSquared > 0) (-(x1 * dx + y1 * dy) / lengthSquared).coerceIn(0.0, 1.0) else 0.0
+        val x = x1 + t * dx
+        val y = y1 + t * dy
+        return x * x + y * y
+    }
+
+    private fun getSegmentOffset(segment: Int): Int {
+        if (segment < 0 || segment >= segmentCount) {
+            throw IndexOutOfBoundsException("segment $segment out of range")
+        }
+        return mSegmentsOffset + segment * SEGMENT_SIZE
+    }
+
+    private fun getCellOffset(cell: Int): Int = mBuffer.getInt(mCellOffsetsOffset + cell * 4)
+
+    private fun getStringOffset(index: Int): Int = mBuffer.getInt(mStringOffsetsOffset + index * 4)
+
+    private fun getString(index: Int): String {
+        val start = getStringOffset(index)
+        val bytes = ByteArray(getStringOffset(index + 1) - start)
+        for (i in bytes.indices) {
+            bytes[i] = mBuffer.get(mStringBytesOffset + start + i)
+        }
+        return String(bytes, Charsets.UTF_8)
+    }
+
+}
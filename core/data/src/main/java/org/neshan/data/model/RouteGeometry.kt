@@ -0,0 +1,133 @@
+package org.neshan.data.model
+
+import org.neshan.data.model.response.Step
+import org.neshan.data.util.PolylineDecoder
+
+/**
+ * route path stored as [latitude, longitude] pairs in one array instead of an object per point.
+ * geometries created by [subGeometry] share array of their source, so remaining part of a route
+ * can be passed around without copying points
+ * */
+class RouteGeometry private constructor(
+    private val mPoints: DoubleArray,
+    // index of first point of this geometry in mPoints
+    private val mStart: Int,
+    val size: Int
+) {
+
+    companion object {
+
+        @JvmField
+        val EMPTY = RouteGeometry(DoubleArray(0))
+
+        /**
+         * creates geometry of steps one after another, steps are decoded straight into it
+         * */
+        @JvmStatic
+        fun fromSteps(steps: List<Step>): RouteGeometry {
+            val builder = Builder(steps.sumOf { step -> PolylineDecoder.countPoints(step.encodedPolyline) })
+            steps.forEach { step -> builder.addStep(step) }
+            return builder.build()
+        }
+
+        /**
+         * creates geometry of encoded polyline, like overview polyline of route
+         * */
+        @JvmStatic
+        fun fromEncodedPolyline(encoded: CharSequence): RouteGeometry {
+            return RouteGeometry(PolylineDecoder.decode(encoded))
+        }
+
+    }
+
+    /**
+     * geometry of packed [latitude, longitude] pairs, array is used without copying
+     * */
+    constructor(points: DoubleArray) : this(points, 0, points.size / 2)
+
+    fun getLatitude(index: Int): Double = mPoints[(mStart + index) * 2]
+
+    fun getLongitude(index: Int): Double = mPoints[(mStart + index) * 2 + 1]
+
+    fun isEmpty(): Boolean = size == 0
+
+    /**
+     * points from [fromIndex] (inclusive) to [toIndex] (exclusive) sharing points of this geometry
+     * */
+    @JvmOverloads
+    fun subGeometry(fromIndex: Int, toIndex: Int = size): RouteGeometry {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw IndexOutOfBoundsException("fromIndex: $fromIndex, toIndex: $toIndex, size: $size")
+        }
+        return RouteGeometry(mPoints, mStart + fromIndex, toIndex - fromIndex)
+    }
+
+    /**
+     * creates geometry by appending points, array grows like ArrayList when capacity is not
+     * enough. built geometries share array of builder, they stay unchanged when more points
+     * are appended since points are never overwritten
+     * */
+    class Builder(pointCapacity: Int) {
+
+        private var mPoints = DoubleArray(maxOf(pointCapacity, 1) * 2)
+
+        // number of written values, twice the number of points
+        private var mLength = 0
+
+        val size: Int
+            get() = mLength / 2
+
+        fun add(latitude: Double, longitude: Double): Builder {
+            ensureCapacity(mLength + 2)
+            mPoints[mLength++] = latitude
+            mPoints[mLength++] = longitude
+            return this
+        }
+
+        /**
+         * appends packed [latitude, longitude] pairs, like step points
+         * */
+        fun addPoints(points: DoubleArray): Builder {
+            ensureCapacity(mLength + points.size)
+            System.arraycopy(points, 0, mPoints, mLength, points.size)
+            mLength += points.size
+            return this
+        }
+
+        /**
+         * decodes encoded polyline straight into builder array, no intermediate objects are created
+         * */
+        fun addEncodedPolyline(encoded: CharSequence): Builder {
+            ensureCapacity(mLength + PolylineDecoder.countPoints(encoded) * 2)
+            mLength += PolylineDecoder.decodeInto(encoded, mPoints, mLength)
+            return this
+        }
+
+        /**
+         * appends points of step, decoded steps are copied and others are decoded straight into
+         * builder array without decoding the step itself
+         * */
+        fun addStep(step: Step): Builder {
+            return if (step.isDecoded()) addPoints(step.points) else addEncodedPolyline(step.encodedPolyline)
+        }
+
+        @JvmOverloads
+        fun addGeometry(geometry: RouteGeometry, fromIndex: Int = 0, toIndex: Int = geometry.size): Builder {
+            val length = (toIndex - fromIndex) * 2
+            ensureCapacity(mLength + length)
+            System.arraycopy(geometry.mPoints, (geometry.mStart + fromIndex) * 2, mPoints, mLength, length)
+            mLength += length
+            return this
+        }
+
+        fun build(): RouteGeometry = RouteGeometry(mPoints, 0, size)
+
+        private fun ensureCapacity(length: Int) {
+            if (length > mPoints.size) {
+                mPoints = mPoints.copyOf(maxOf(length, mPoints.size + mPoints.size / 2))
+            }
+        }
+
+    }
+
+}
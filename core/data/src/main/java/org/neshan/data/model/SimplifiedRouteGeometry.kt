@@ -0,0 +1,184 @@
+package org.neshan.data.model
+
+import org.neshan.data.AppConfig
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.pow
+import kotlin.math.sqrt
+
+/**
+ * route geometry with douglas-peucker simplifications for map zoom levels, so a zoomed out map
+ * does not draw points closer than a pixel to the path. simplification runs once per route and
+ * each level keeps indices of its points in full geometry, so a level can also be drawn from a
+ * point of route (remaining part while navigating)
+ * */
+class SimplifiedRouteGeometry private constructor(
+    val geometry: RouteGeometry,
+    // indices of kept points for zoom levels from min zoom, empty if route is not simplified
+    private val mLevels: Array<IntArray>,
+    private val minZoom: Int
+) {
+
+    companion object {
+
+        private const val METERS_PER_DEGREE = 111_320.0
+
+        // meters per pixel at zoom 0 on equator for 256 pixel tiles
+        private const val METERS_PER_PIXEL_AT_ZOOM_0 = 156_543.03
+
+        /**
+         * simplifies geometry for zoom levels below max zoom, takes O(n log n) on usual routes
+         * so call it off main thread
+         * */
+        @JvmStatic
+        @JvmOverloads
+        fun create(
+            geometry: RouteGeometry,
+            minZoom: Int = AppConfig.ROUTE_SIMPLIFICATION_MIN_ZOOM,
+            maxZoom: Int = AppConfig.ROUTE_SIMPLIFICATION_MAX_ZOOM,
+            toleranceInPixels: Double = AppConfig.ROUTE_SIMPLIFICATION_TOLERANCE_IN_PIXELS
+        ): SimplifiedRouteGeometry {
+            if (geometry.size <= 2) {
+                return SimplifiedRouteGeometry(geometry, emptyArray(), minZoom)
+            }
+
+            val tolerances = computeTolerances(geometry)
+            val latitudeScale = cos(Math.toRadians(geometry.getLatitude(0)))
+
+            val levels = Array(maxZoom - minZoom) { level ->
+                val metersPerPixel = METERS_PER_PIXEL_AT_ZOOM_0 * latitudeScale / 2.0.pow(minZoom + level)
+                val tolerance = (metersPerPixel * toleranceInPixels).toFloat()
+
+                var count = 0
+                tolerances.forEach { pointTolerance -> if (pointTolerance > tolerance) count++ }
+                val indices = IntArray(count)
+                count = 0
+                tolerances.forEachIndexed { index, pointTolerance ->
+                    if (pointTolerance > tolerance) indices[count++] = index
+                }
+                indices
+            }
+
+            return SimplifiedRouteGeometry(geometry, levels, minZoom)
+        }
+
+        /**
+         * wraps geometry which is always drawn completely, like overview polyline
+         * */
+        @JvmStatic
+        fun unsimplified(geometry: RouteGeometry): SimplifiedRouteGeometry {
+            return SimplifiedRouteGeometry(geometry, emptyArray(), 0)
+        }
+
+        /**
+         * runs douglas-peucker once and keeps for each point the largest tolerance (in meters)
+         * that still keeps it, a level is then points with tolerance above level tolerance.
+         * tolerance of a point is capped by the one of its parent split, so levels are nested
+         * */
+        private fun computeTolerances(geometry: RouteGeometry): FloatArray {
+            val size = geometry.size
+            val latitudeScale = cos(Math.toRadians(geometry.getLatitude(0)))
+            // local projection in meters, accurate enough for route lengths
+            val x = DoubleArray(size) { index -> geometry.getLongitude(index) * latitudeScale * METERS_PER_DEGREE }
+            val y = DoubleArray(size) { index -> geometry.getLatitude(index) * METERS_PER_DEGREE }
+
+            val tolerances = FloatArray(size)
+            tolerances[0] = Float.MAX_VALUE
+            tolerances[size - 1] = Float.MAX_VALUE
+
+            // ranges to split as (first, last, parent tolerance), an explicit stack avoids deep recursion
+            val ranges = IntArray(size * 2)
+            val parentTolerances = FloatArray(size)
+            var stackSize = 0
+            ranges[0] = 0
+            ranges[1] = size - 1
+            parentTolerances[0] = Float.MAX_VALUE
+            stackSize++
+
+            while (stackSize > 0) {
+                stackSize--
+                val first = ranges[stackSize * 2]
+                val last = ranges[stackSize * 2 + 1]
+                val parentTolerance = parentTolerances[stackSize]
+                if (last - first < 2) {
+                    continue
+                }
+
+                var farthestIndex = first + 1
+                var farthestDistance = -1.0
+                for (index in first + 1 until last) {
+                    val distance = getSegmentDistanceSquared(x, y, index, first, last)
+                    if (distance > farthestDistance) {
+                        farthestDistance = distance
+                        farthestIndex = index
+                    }
+                }
+
+                val tolerance = minOf(sqrt(farthestDistance).toFloat(), parentTolerance)
+                tolerances[farthestIndex] = tolerance
+
+                ranges[stackSize * 2] = first
+                ranges[stackSize * 2 + 1] = farthestIndex
+                parentTolerances[stackSize] = tolerance
+                stackSize++
+                ranges[stackSize * 2] = farthestIndex
+                ranges[stackSize * 2 + 1] = last
+                parentTolerances[stackSize] = tolerance
+                stackSize++
+            }
+
+            return tolerances
+        }
+
+        private fun getSegmentDistanceSquared(x: DoubleArray, y: DoubleArray, index: Int, first: Int, last: Int): Double {
+            val dx = x[last] - x[first]
+            val dy = y[last] - y[first]
+            val lengthSquared = dx * dx + dy * dy
+            var t = if (lengthSquared > 0) ((x[index] - x[first]) * dx + (y[index] - y[first]) * dy) / lengthSquared else 0.0
+            t = t.coerceIn(0.0, 1.0)
+            val px = x[first] + t * dx - x[index]
+            val py = y[first] + t * dy - y[index]
+            return px * px + py * py
+        }
+
+    }
+
+    /**
+     * level drawn at zoom, -1 if full geometry is drawn
+     * */
+    fun getLevel(zoom: Float): Int {
+        val level = floor(zoom).toInt() - minZoom
+        return when {
+            mLevels.isEmpty() || level >= mLevels.size -> -1
+            else -> level.coerceAtLeast(0)
+        }
+    }
+
+    /**
+     * geometry to draw at zoom, starting from [fromIndex] of full geometry
+     * */
+    @JvmOverloads
+    fun getGeometry(zoom: Float, fromIndex: Int = 0): RouteGeometry {
+        val level = getLevel(zoom)
+        if (level < 0) {
+            return geometry.subGeometry(fromIndex)
+        }
+
+        val indices = mLevels[level]
+        // first kept point after fromIndex
+        var low = 0
+        var high = indices.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (indices[middle] <= fromIndex) low = middle + 1 else high = middle
+        }
+
+        val builder = RouteGeometry.Builder(indices.size - low + 1)
+        builder.add(geometry.getLatitude(fromIndex), geometry.getLongitude(fromIndex))
+        for (position in low until indices.size) {
+            builder.add(geometry.getLatitude(indices[position]), geometry.getLongitude(indices[position]))
+        }
+        return builder.build()
+    }
+
+}
@@ -1,9 +1,12 @@
 package org.neshan.data.model.response
 
 abstract class NeshanResponse {
-    val status: String = ""
-    val code: Int? = null
-    val message: String? = null
+    var status: String = ""
+        internal set
+    var code: Int? = null
+        internal set
+    var message: String? = null
+        internal set
 
     fun isSuccessFull() = status.equals("OK", true)
 
@@ -1,10 +1,22 @@
 package org.neshan.data.model.response
 
 import com.google.gson.annotations.SerializedName
+import org.neshan.data.util.PolylineDecoder
 
 data class RoutingResponse(
     val routes: ArrayList<Route>? = null,
-) : NeshanResponse()
+) : NeshanResponse() {
+
+    companion object {
+        /**
+         * creates successful response for routes which are not loaded from api service
+         * */
+        fun success(routes: ArrayList<Route>): RoutingResponse {
+            return RoutingResponse(routes).apply { status = "OK" }
+        }
+    }
+
+}
 
 data class Route(
     @SerializedName("overview_polyline")
@@ -28,6 +40,11 @@ data class Distance(val value: Int, val text: String)
 
 data class Duration(val value: Int, val text: String)
 
+/**
+ * step geometry is kept encoded and decoded on first use of [points], so a route can be
+ * drawn from its overview polyline before step geometries are decoded. [points] holds
+ * [latitude, longitude] pairs of step polyline one after another
+ * */
 data class Step(
     val name: String,
     val instruction: String,
@@ -37,4 +54,14 @@ data class Step(
     val bearingAfter: Int,
     @SerializedName("polyline")
     val encodedPolyline: String
-)
\ No newline at end of file
+) {
+
+    // synchronized, a step may be decoded in background while navigation reads it
+    private val mPoints = lazy { PolylineDecoder.decode(encodedPolyline) }
+
+    val points: DoubleArray
+        get() = mPoints.value
+
+    fun isDecoded(): Boolean = mPoints.isInitialized()
+
+}
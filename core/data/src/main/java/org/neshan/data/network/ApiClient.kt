@@ -12,12 +12,17 @@ import retrofit2.http.Query
  */
 interface ApiClient {
 
+    companion object {
+        const val ENDPOINT_REVERSE = "v4/reverse"
+        const val ENDPOINT_DIRECTION = "v4/direction/no-traffic"
+    }
+
     /**
      * loads address detail for specific location by latitude and longitude
      * @param lat: latitude for desired location
      * @param lng: longitude for desired location
      */
-    @GET("v4/reverse")
+    @GET(ENDPOINT_REVERSE)
     fun getAddress(
         @Query("lat") lat: Double,
         @Query("lng") lng: Double
@@ -30,7 +35,7 @@ interface ApiClient {
      * @param endPoint: end point coordinates formatted as "latitude,longitude"
      * @param bearing: a value between 0 and 360
      */
-    @GET("v4/direction/no-traffic")
+    @GET(ENDPOINT_DIRECTION)
     fun getDirection(
         @Query("type") type: String,
         @Query("origin") startPoint: String,
@@ -0,0 +1,78 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Single
+import org.neshan.data.model.response.AddressDetailResponse
+import org.neshan.data.model.response.RoutingResponse
+
+/**
+ * [ApiClient] decorator which shares one in-flight request between all subscribers asking for
+ * the same data, so identical calls fired at the same time reach the server only once.
+ * subsequent calls after the request finished will trigger a new request.
+ * */
+class CoalescingApiClient(private val apiClient: ApiClient) : ApiClient {
+
+    // running requests mapped by their request key
+    private val mInFlightRequests = HashMap<RequestKey, Single<*>>()
+
+    override fun getAddress(lat: Double, lng: Double): Single<AddressDetailResponse> {
+        return coalesce(AddressKey(lat, lng)) {
+            apiClient.getAddress(lat, lng)
+        }
+    }
+
+    override fun getDirection(
+        type: String,
+        startPoint: String,
+        endPoint: String,
+        bearing: Int
+    ): Single<RoutingResponse> {
+        return coalesce(DirectionKey(type, startPoint, endPoint, bearing)) {
+            apiClient.getDirection(type, startPoint, endPoint, bearing)
+        }
+    }
+
+    /**
+     * returns in-flight request for the key if exists, otherwise creates a shared request
+     * */
+    private fun <T : Any> coalesce(key: RequestKey, request: () -> Single<T>): Single<T> {
+        return Single.defer {
+            synchronized(mInFlightRequests) {
+                @Suppress("UNCHECKED_CAST")
+                mInFlightRequests[key] as Single<T>?
+                    ?: createSharedRequest(key, request()).also { mInFlightRequests[key] = it }
+            }
+        }
+    }
+
+    /**
+     * shares request between subscribers, request will be cancelled when all subscribers
+     * are disposed and removed from in-flight requests when finished
+     * */
+    private fun <T : Any> createSharedRequest(key: RequestKey, request: Single<T>): Single<T> {
+        lateinit var sharedRequest: Single<T>
+        sharedRequest = request
+            .doFinally {
+                synchronized(mInFlightRequests) {
+                    if (mInFlightRequests[key] === sharedRequest) {
+                        mInFlightRequests.remove(key)
+                    }
+                }
+            }
+            .toObservable()
+            .share()
+            .singleOrError()
+        return sharedRequest
+    }
+
+    private interface RequestKey
+
+    private data class AddressKey(val lat: Double, val lng: Double) : RequestKey
+
+    private data class DirectionKey(
+        val type: String,
+        val startPoint: String,
+        val endPoint: String,
+        val bearing: Int
+    ) : RequestKey
+
+}
@@ -0,0 +1,50 @@
+package org.neshan.data.network
+
+import android.util.Log
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.schedulers.Schedulers
+import okhttp3.Request
+import org.neshan.data.AppConfig
+import org.neshan.data.network.metrics.NetworkMetricsEventListener
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * opens a connection to api server ahead of the first request, so DNS lookup, TCP and TLS
+ * handshakes are already done when user asks for an address or route
+ * */
+@Singleton
+class ConnectionWarmer @Inject constructor(private val retrofitConfig: RetrofitConfig) {
+
+    companion object {
+        private const val TAG = "ConnectionWarmer"
+    }
+
+    /**
+     * starts warming up connection on a background thread if enabled by [AppConfig]
+     * */
+    fun warmUp() {
+        if (!AppConfig.CONNECTION_WARM_UP_ENABLED) {
+            return
+        }
+
+        Completable.fromAction {
+            val request = Request.Builder()
+                .url(retrofitConfig.getBaseUrl())
+                .head()
+                // not an api call, keeps it out of endpoint metrics
+                .tag(NetworkMetricsEventListener.Untracked::class.java, NetworkMetricsEventListener.Untracked)
+                .build()
+
+            // response is not important, established connection remains in connection pool
+            retrofitConfig.getHttpClient().newCall(request).execute().close()
+        }
+            .subscribeOn(Schedulers.io())
+            .subscribe({
+                Log.d(TAG, "connection warmed up")
+            }, { error ->
+                Log.d(TAG, "connection warm up failed: ${error.message}")
+            })
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.neshan.data.network
+
+import android.content.Context
+import dagger.hilt.android.qualifiers.ApplicationContext
+import okhttp3.Cache
+import org.neshan.data.AppConfig
+import java.io.File
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * on-disk http response cache shared by all api calls, also keeps hit/miss counters
+ * to measure how many requests were answered without network
+ * */
+@Singleton
+class HttpCache @Inject constructor(@ApplicationContext context: Context) {
+
+    val cache = Cache(
+        File(context.cacheDir, AppConfig.HTTP_CACHE_DIRECTORY),
+        AppConfig.HTTP_CACHE_SIZE_IN_BYTES
+    )
+
+    // responses served from cache after a network failure (stale-if-error)
+    private val mStaleHitCount = AtomicInteger()
+
+    /**
+     * number of requests whose response was provided by the cache
+     * (including conditional requests validated over the network)
+     * */
+    fun hitCount(): Int = cache.hitCount()
+
+    /**
+     * number of requests that required a network call
+     * */
+    fun missCount(): Int = cache.networkCount()
+
+    /**
+     * number of requests that were answered by stale cached responses because network failed
+     * */
+    fun staleHitCount(): Int = mStaleHitCount.get()
+
+    /**
+     * total number of requests passed through the cache
+     * */
+    fun requestCount(): Int = cache.requestCount()
+
+    /**
+     * ratio of requests answered by cache, a value between 0 and 1
+     * */
+    fun hitRate(): Float {
+        val requestCount = requestCount()
+        return if (requestCount > 0) hitCount().toFloat() / requestCount else 0f
+    }
+
+    fun onStaleHit() {
+        mStaleHitCount.incrementAndGet()
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.neshan.data.network.metrics.NetworkMetrics
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * sends a second (hedged) request if the first one has not answered within the p95 latency
+ * of the endpoint. first response wins and the other request is cancelled. when requests are
+ * retried with an attempt timeout, hedge is sent early enough in the attempt to be answered
+ * */
+@Singleton
+class RequestHedger(
+    private val networkMetrics: NetworkMetrics,
+    private val scheduler: Scheduler
+) {
+
+    @Inject
+    constructor(networkMetrics: NetworkMetrics) : this(networkMetrics, Schedulers.computation())
+
+    companion object {
+        // minimum recorded samples to trust measured latency
+        private const val MIN_SAMPLE_COUNT = 10
+        private const val HEDGE_PERCENTILE = 95.0
+
+        private const val DEFAULT_HEDGE_DELAY_IN_MILLIS = 1500L
+        private const val MIN_HEDGE_DELAY_IN_MILLIS = 300L
+        private const val MAX_HEDGE_DELAY_IN_MILLIS = 5000L
+
+        // part of attempt timeout which hedge delay may take, rest is left for hedged request
+        private const val MAX_HEDGE_DELAY_TIMEOUT_RATIO = 0.5
+    }
+
+    /**
+     * @param endpoint: api path used to find measured latency, one of [ApiClient] endpoints
+     * @param request: the original request
+     * @param hedgedRequest: an independent copy of request (must not share in-flight call with [request])
+     * @param retryPolicy: policy the hedged pair is retried with, its attempt timeout caps hedge delay
+     * */
+    @JvmOverloads
+    fun <T : Any> hedge(
+        endpoint: String,
+        request: Single<T>,
+        hedgedRequest: Single<T>,
+        retryPolicy: RetryPolicy? = null
+    ): Single<T> {
+        // delay is measured on every attempt, so retries use latest latencies
+        return Single.defer {
+            val hedgeDelay = getHedgeDelay(endpoint, retryPolicy?.attemptTimeoutMillis)
+            Single.ambArray(
+                request,
+                hedgedRequest.delaySubscription(hedgeDelay, TimeUnit.MILLISECONDS, scheduler)
+            )
+        }
+    }
+
+    /**
+     * time to wait for first response before sending hedged request
+     * @param attemptTimeoutMillis: timeout of each attempt, delay stays below half of it
+     * */
+    @JvmOverloads
+    fun getHedgeDelay(endpoint: String, attemptTimeoutMillis: Long? = null): Long {
+        val phase = NetworkMetrics.Phase.TOTAL
+        val delay = if (networkMetrics.sampleCount(endpoint, phase) >= MIN_SAMPLE_COUNT) {
+            networkMetrics.percentile(endpoint, phase, HEDGE_PERCENTILE)
+        } else {
+            null
+        }
+
+        val maxDelay = attemptTimeoutMillis?.let { timeout ->
+            minOf(MAX_HEDGE_DELAY_IN_MILLIS, (timeout * MAX_HEDGE_DELAY_TIMEOUT_RATIO).toLong())
+        } ?: MAX_HEDGE_DELAY_IN_MILLIS
+
+        return (delay ?: DEFAULT_HEDGE_DELAY_IN_MILLIS)
+            .coerceAtLeast(MIN_HEDGE_DELAY_IN_MILLIS)
+            .coerceAtMost(maxDelay)
+    }
+
+}
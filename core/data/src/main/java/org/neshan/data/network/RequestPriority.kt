@@ -0,0 +1,12 @@
+package org.neshan.data.network
+
+/**
+ * priority classes of api requests, ordered from highest to lowest priority
+ * @param maxConcurrentRequests: maximum number of requests of this class running at once
+ * */
+enum class RequestPriority(val maxConcurrentRequests: Int) {
+    NAVIGATION(2), ROUTE_PREVIEW(2), ADDRESS_LOOKUP(2),
+
+    // speculative requests whose results may never be used
+    PREFETCH(1)
+}
@@ -0,0 +1,160 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.disposables.Disposable
+import io.reactivex.rxjava3.schedulers.Schedulers
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * runs api requests according to their [RequestPriority]. pending requests of higher priority
+ * classes start first, also number of running requests is limited per class and in total
+ * */
+@Singleton
+class RequestScheduler(
+    private val maxConcurrentRequests: Int,
+    private val scheduler: Scheduler
+) {
+
+    @Inject
+    constructor() : this(DEFAULT_MAX_CONCURRENT_REQUESTS, Schedulers.io())
+
+    companion object {
+        const val DEFAULT_MAX_CONCURRENT_REQUESTS = 4
+    }
+
+    private val mPendingRequests = RequestPriority.values().map { LinkedList<PendingRequest>() }
+
+    private val mRunningCounts = IntArray(RequestPriority.values().size)
+
+    private var mRunningCount = 0
+
+    /**
+     * request is subscribed (on io thread) when a slot for its priority class is free
+     * */
+    fun <T : Any> schedule(priority: RequestPriority, request: Single<T>): Single<T> {
+        return Single.create { emitter ->
+            val pendingRequest = PendingRequest(priority) { onFinished ->
+                request.subscribeOn(scheduler).subscribe({ value ->
+                    onFinished()
+                    emitter.onSuccess(value)
+                }, { error ->
+                    onFinished()
+                    emitter.tryOnError(error)
+                })
+            }
+            emitter.setCancellable { cancel(pendingRequest) }
+
+            enqueue(pendingRequest)
+        }
+    }
+
+    /**
+     * number of requests waiting to be started for a priority class
+     * */
+    @Synchronized
+    fun pendingCount(priority: RequestPriority): Int = mPendingRequests[priority.ordinal].size
+
+    /**
+     * number of running requests of a priority class
+     * */
+    @Synchronized
+    fun runningCount(priority: RequestPriority): Int = mRunningCounts[priority.ordinal]
+
+    private fun enqueue(request: PendingRequest) {
+        synchronized(this) {
+            mPendingRequests[request.priority.ordinal].add(request)
+        }
+        startPendingRequests()
+    }
+
+    private fun cancel(request: PendingRequest) {
+        synchronized(this) {
+            mPendingRequests[request.priority.ordinal].remove(request)
+        }
+        request.cancel()
+        startPendingRequests()
+    }
+
+    private fun onFinished(request: PendingRequest) {
+        synchronized(this) {
+            mRunningCounts[request.priority.ordinal]--
+            mRunningCount--
+        }
+        startPendingRequests()
+    }
+
+    /**
+     * starts pending requests from highest priority class while there are free slots
+     * */
+    private fun startPendingRequests() {
+        val requestsToStart = mutableListOf<PendingRequest>()
+
+        synchronized(this) {
+            for (priority in RequestPriority.values()) {
+                val pendingRequests = mPendingRequests[priority.ordinal]
+                while (mRunningCount < maxConcurrentRequests
+                    && mRunningCounts[priority.ordinal] < priority.maxConcurrentRequests
+                    && pendingRequests.isNotEmpty()
+                ) {
+                    requestsToStart.add(pendingRequests.removeFirst())
+                    mRunningCounts[priority.ordinal]++
+                    mRunningCount++
+                }
+            }
+        }
+
+        // start requests outside of lock, requests may finish synchronously
+        requestsToStart.forEach { request ->
+            request.start { onFinished(request) }
+        }
+    }
+
+    private class PendingRequest(
+        val priority: RequestPriority,
+        private val subscribe: (onFinished: () -> Unit) -> Disposable
+    ) {
+        private val mFinished = AtomicBoolean(false)
+
+        @Volatile
+        private var mDisposable: Disposable? = null
+
+        @Volatile
+        private var mCancelled = false
+
+        @Volatile
+        private var mOnFinished: (() -> Unit)? = null
+
+        fun start(onFinished: () -> Unit) {
+            mOnFinished = onFinished
+            if (mCancelled) {
+                finish()
+                return
+            }
+            mDisposable = subscribe { finish() }
+            if (mCancelled) {
+                mDisposable?.dispose()
+            }
+        }
+
+        fun cancel() {
+            mCancelled = true
+            mDisposable?.dispose()
+            // release slot if request was running
+            if (mOnFinished != null) {
+                finish()
+            }
+        }
+
+        // releases slot only once
+        private fun finish() {
+            if (mFinished.compareAndSet(false, true)) {
+                mOnFinished?.invoke()
+            }
+        }
+    }
+
+}
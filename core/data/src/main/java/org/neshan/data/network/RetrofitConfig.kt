@@ -3,6 +3,8 @@ package org.neshan.data.network
 import com.google.gson.Gson
 import com.google.gson.GsonBuilder
 import hu.akarnokd.rxjava3.retrofit.RxJava3CallAdapterFactory
+import okhttp3.CacheControl
+import okhttp3.ConnectionPool
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.Request
@@ -10,16 +12,22 @@ import okhttp3.Response
 import okhttp3.logging.HttpLoggingInterceptor
 import org.neshan.data.AppConfig
 import org.neshan.data.BuildConfig
+import org.neshan.data.model.response.RoutingResponse
+import org.neshan.data.network.metrics.NetworkMetrics
 import retrofit2.Converter
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.IOException
 import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 import javax.inject.Singleton
 
 
 @Singleton
-open class RetrofitConfig @Inject constructor() {
+open class RetrofitConfig @Inject constructor(
+    private val httpCache: HttpCache,
+    private val networkMetrics: NetworkMetrics
+) {
     protected val builder: Retrofit.Builder by lazy {
         getRetrofitBuilder()
     }
@@ -27,12 +35,32 @@ open class RetrofitConfig @Inject constructor() {
         getHttpClientBuilder()
     }
 
+    // single client instance, so all requests share the same connection pool
+    protected val client: OkHttpClient by lazy {
+        initialize()
+        httpClient.build()
+    }
+
+    private var mInitialized = false
+
+    @Synchronized
     fun initialize() {
+        if (mInitialized) {
+            return
+        }
+        mInitialized = true
+
+        // serve cached responses when network fails
+        httpClient.addInterceptor(getStaleIfErrorInterceptor())
+
         // add main interceptor
         httpClient.addInterceptor(getMainInterceptor())
 
         // add logger interceptor
         httpClient.addInterceptor(getLogger())
+
+        // set cache freshness for server responses
+        httpClient.addNetworkInterceptor(getCacheControlInterceptor())
     }
 
     private fun isLogEnabled(): Boolean {
@@ -51,7 +79,7 @@ open class RetrofitConfig @Inject constructor() {
             .baseUrl(getBaseUrl())
             .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
             .addConverterFactory(getConverterFactory())
-            .client(httpClient.build())
+            .client(client)
     }
 
     /**
@@ -63,6 +91,28 @@ open class RetrofitConfig @Inject constructor() {
             .writeTimeout(10, TimeUnit.SECONDS)
             .connectTimeout(10, TimeUnit.SECONDS)
             .readTimeout(10, TimeUnit.SECONDS)
+            .connectionPool(getConnectionPool())
+            .cache(httpCache.cache)
+            .eventListenerFactory(networkMetrics.eventListenerFactory())
+    }
+
+    /**
+     * initialize connection pool, idle connections are kept alive long enough to be reused
+     * by repeated requests (ie, reroutes while navigating)
+     * */
+    open fun getConnectionPool(): ConnectionPool {
+        return ConnectionPool(
+            AppConfig.CONNECTION_POOL_MAX_IDLE_CONNECTIONS,
+            AppConfig.CONNECTION_KEEP_ALIVE_IN_MINUTES,
+            TimeUnit.MINUTES
+        )
+    }
+
+    /**
+     * returns http client used by api services
+     * */
+    fun getHttpClient(): OkHttpClient {
+        return client
     }
 
     /**
@@ -87,6 +137,97 @@ open class RetrofitConfig @Inject constructor() {
         }
     }
 
+    /**
+     * initialize network interceptor which overrides server cache headers with
+     * per endpoint freshness defined by [getCacheMaxAge]
+     * */
+    open fun getCacheControlInterceptor(): Interceptor {
+        return Interceptor { chain ->
+            val request = chain.request()
+            val response = chain.proceed(request)
+
+            val maxAge = getCacheMaxAge(request.url.encodedPath)
+            if (request.method != "GET" || !response.isSuccessful || maxAge == null) {
+                return@Interceptor response
+            }
+
+            val cacheControl = CacheControl.Builder()
+                .maxAge(maxAge, TimeUnit.SECONDS)
+                .build()
+
+            response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", cacheControl.toString())
+                .build()
+        }
+    }
+
+    /**
+     * initialize interceptor which answers from stale cached response if network request fails
+     * */
+    open fun getStaleIfErrorInterceptor(): Interceptor {
+        return Interceptor { chain ->
+            val request = chain.request()
+            if (request.method != "GET") {
+                return@Interceptor chain.proceed(request)
+            }
+
+            val response = try {
+                chain.proceed(request)
+            } catch (exception: IOException) {
+                return@Interceptor getStaleResponse(chain, request) ?: throw exception
+            }
+
+            // server failure -> try cached response instead
+            if (response.code >= 500) {
+                getStaleResponse(chain, request)?.let { staleResponse ->
+                    response.close()
+                    return@Interceptor staleResponse
+                }
+            }
+
+            response
+        }
+    }
+
+    private fun getStaleResponse(chain: Interceptor.Chain, request: Request): Response? {
+        val staleRequest = request.newBuilder()
+            .cacheControl(
+                CacheControl.Builder()
+                    .onlyIfCached()
+                    .maxStale(AppConfig.HTTP_CACHE_MAX_STALE_IN_SECONDS, TimeUnit.SECONDS)
+                    .build()
+            )
+            .build()
+
+        val staleResponse = try {
+            chain.proceed(staleRequest)
+        } catch (exception: IOException) {
+            return null
+        }
+
+        // cache returns 504 when there is no usable cached response
+        return if (staleResponse.isSuccessful) {
+            httpCache.onStaleHit()
+            staleResponse
+        } else {
+            staleResponse.close()
+            null
+        }
+    }
+
+    /**
+     * returns how long (in seconds) response of an endpoint stays fresh in cache,
+     * null means the endpoint should not be cached
+     * */
+    open fun getCacheMaxAge(encodedPath: String): Int? {
+        return when {
+            encodedPath.endsWith(ApiClient.ENDPOINT_REVERSE) -> AppConfig.REVERSE_GEOCODE_CACHE_MAX_AGE_IN_SECONDS
+            encodedPath.endsWith(ApiClient.ENDPOINT_DIRECTION) -> AppConfig.DIRECTION_CACHE_MAX_AGE_IN_SECONDS
+            else -> null
+        }
+    }
+
     /**
      * initialize logger interceptor
      * */
@@ -102,7 +243,10 @@ open class RetrofitConfig @Inject constructor() {
      * initialize converter factory
      * */
     open fun getConverterFactory(): Converter.Factory {
-        val gson: Gson = GsonBuilder().setLenient().create()
+        val gson: Gson = GsonBuilder()
+            .setLenient()
+            .registerTypeAdapter(RoutingResponse::class.java, RoutingResponseTypeAdapter())
+            .create()
         return GsonConverterFactory.create(gson)
     }
 
@@ -0,0 +1,94 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Flowable
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.core.SingleTransformer
+import io.reactivex.rxjava3.schedulers.Schedulers
+import retrofit2.HttpException
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import kotlin.random.Random
+
+/**
+ * retries failed api requests with exponential backoff and random jitter.
+ * only connection failures, timeouts and server errors are retried, client errors (4xx)
+ * are passed to subscribers immediately
+ * @param maxRetries: maximum number of retries after first failure
+ * @param initialDelayMillis: base delay before first retry, doubled for each next retry
+ * @param maxDelayMillis: upper bound of delay between retries
+ * @param attemptTimeoutMillis: if set, every attempt fails (and is retried) after this time
+ * */
+class RetryPolicy(
+    private val maxRetries: Int = 2,
+    private val initialDelayMillis: Long = 300,
+    private val maxDelayMillis: Long = 3000,
+    val attemptTimeoutMillis: Long? = null,
+    private val random: Random = Random.Default,
+    private val scheduler: Scheduler = Schedulers.computation()
+) {
+
+    companion object {
+        // default policy for api requests
+        @JvmField
+        val DEFAULT = RetryPolicy()
+
+        // rerouting while navigating, user is already off route so fail fast and try again
+        @JvmField
+        val NAVIGATION = RetryPolicy(
+            maxRetries = 3,
+            initialDelayMillis = 200,
+            maxDelayMillis = 1500,
+            attemptTimeoutMillis = 4000
+        )
+
+        /**
+         * checks error means api service could not be reached or could not answer: connection
+         * failures, timeouts and server errors. such requests may succeed later or on device
+         * */
+        @JvmStatic
+        fun isServiceUnavailable(error: Throwable): Boolean {
+            return when (error) {
+                is IOException, is TimeoutException -> true
+                is HttpException -> error.code() >= 500
+                else -> false
+            }
+        }
+    }
+
+    fun <T : Any> apply(): SingleTransformer<T, T> {
+        return SingleTransformer { upstream ->
+            val request = attemptTimeoutMillis?.let { timeout ->
+                upstream.timeout(timeout, TimeUnit.MILLISECONDS, scheduler)
+            } ?: upstream
+
+            request.retryWhen { errors ->
+                var retryCount = 0
+                errors.flatMap { error ->
+                    retryCount++
+                    if (retryCount > maxRetries || !isRetryable(error)) {
+                        Flowable.error(error)
+                    } else {
+                        Flowable.timer(getDelay(retryCount), TimeUnit.MILLISECONDS, scheduler)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * calculates delay before retry, exponential backoff with jitter in the upper half
+     * to avoid synchronized retries of multiple clients
+     * */
+    fun getDelay(retryCount: Int): Long {
+        val backoff = (initialDelayMillis shl (retryCount - 1).coerceIn(0, 20))
+            .coerceAtMost(maxDelayMillis)
+        val halfBackoff = backoff / 2
+        return halfBackoff + random.nextLong(halfBackoff + 1)
+    }
+
+    private fun isRetryable(error: Throwable): Boolean {
+        return isServiceUnavailable(error) || (error is HttpException && error.code() == 429)
+    }
+
+}
@@ -0,0 +1,248 @@
+package org.neshan.data.network
+
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+import org.neshan.data.model.response.*
+
+/**
+ * streaming parser for direction api response, step polylines are kept encoded and decoded
+ * on first use (see [Step]) so parsing long routes stays cheap. responses are written in the
+ * same format, decoded step points are not written
+ * */
+class RoutingResponseTypeAdapter : TypeAdapter<RoutingResponse>() {
+
+    override fun write(writer: JsonWriter, value: RoutingResponse?) {
+        if (value == null) {
+            writer.nullValue()
+            return
+        }
+
+        writer.beginObject()
+        writer.name("status").value(value.status)
+        value.code?.let { code -> writer.name("code").value(code) }
+        value.message?.let { message -> writer.name("message").value(message) }
+        value.routes?.let { routes -> writeArray(writer, "routes", routes, ::writeRoute) }
+        writer.endObject()
+    }
+
+    private fun writeRoute(writer: JsonWriter, route: Route) {
+        writer.beginObject()
+        writer.name("overview_polyline").beginObject()
+        writer.name("points").value(route.overviewPolyline.encodedPolyline)
+        writer.endObject()
+        writeArray(writer, "legs", route.legs, ::writeLeg)
+        writer.endObject()
+    }
+
+    private fun writeLeg(writer: JsonWriter, leg: Leg) {
+        writer.beginObject()
+        writer.name("summary").value(leg.summary)
+        writeValueText(writer, "distance", leg.distance.value, leg.distance.text)
+        writeValueText(writer, "duration", leg.duration.value, leg.duration.text)
+        writeArray(writer, "steps", leg.steps, ::writeStep)
+        writer.endObject()
+    }
+
+    private fun writeStep(writer: JsonWriter, step: Step) {
+        writer.beginObject()
+        writer.name("name").value(step.name)
+        writer.name("instruction").value(step.instruction)
+        writeValueText(writer, "distance", step.distance.value, step.distance.text)
+        writeValueText(writer, "duration", step.duration.value, step.duration.text)
+        writer.name("bearing_after").value(step.bearingAfter)
+        writer.name("polyline").value(step.encodedPolyline)
+        writer.endObject()
+    }
+
+    private fun writeValueText(writer: JsonWriter, name: String, value: Int, text: String) {
+        writer.name(name).beginObject()
+        writer.name("value").value(value)
+        writer.name("text").value(text)
+        writer.endObject()
+    }
+
+    private fun <T> writeArray(writer: JsonWriter, name: String, items: List<T>, writeItem: (JsonWriter, T) -> Unit) {
+        writer.name(name).beginArray()
+        items.forEach { item -> writeItem(writer, item) }
+        writer.endArray()
+    }
+
+    override fun read(reader: JsonReader): RoutingResponse? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+
+        var routes: ArrayList<Route>? = null
+        var status = ""
+        var code: Int? = null
+        var message: String? = null
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "routes" -> routes = readArray(reader, ::readRoute)
+                "status" -> status = readString(reader)
+                "code" -> code = readInt(reader)
+                "message" -> message = readString(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return RoutingResponse(routes).apply {
+            this.status = status
+            this.code = code
+            this.message = message
+        }
+    }
+
+    private fun readRoute(reader: JsonReader): Route {
+        var overviewPolyline = ""
+        var legs: ArrayList<Leg>? = null
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "overview_polyline" -> overviewPolyline = readOverviewPolyline(reader)
+                "legs" -> legs = readArray(reader, ::readLeg)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return Route(OverviewPolyline(overviewPolyline), legs ?: ArrayList())
+    }
+
+    private fun readOverviewPolyline(reader: JsonReader): String {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return ""
+        }
+
+        var points = ""
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "points" -> points = readString(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return points
+    }
+
+    private fun readLeg(reader: JsonReader): Leg {
+        var summary = ""
+        var distance = Distance(0, "")
+        var duration = Duration(0, "")
+        var steps: ArrayList<Step>? = null
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "summary" -> summary = readString(reader)
+                "distance" -> distance = readValueText(reader) { value, text -> Distance(value, text) }
+                "duration" -> duration = readValueText(reader) { value, text -> Duration(value, text) }
+                "steps" -> steps = readArray(reader, ::readStep)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return Leg(summary, distance, duration, steps ?: ArrayList())
+    }
+
+    private fun readStep(reader: JsonReader): Step {
+        var name = ""
+        var instruction = ""
+        var distance = Distance(0, "")
+        var duration = Duration(0, "")
+        var bearingAfter = 0
+        var encodedPolyline = ""
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "name" -> name = readString(reader)
+                "instruction" -> instruction = readString(reader)
+                "distance" -> distance = readValueText(reader) { value, text -> Distance(value, text) }
+                "duration" -> duration = readValueText(reader) { value, text -> Duration(value, text) }
+                "bearing_after" -> bearingAfter = readInt(reader) ?: 0
+                "polyline" -> encodedPolyline = readString(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return Step(name, instruction, distance, duration, bearingAfter, encodedPolyline)
+    }
+
+    /**
+     * reads objects like {"value": 120, "text": "2 minutes"}
+     * */
+    private fun <T> readValueText(reader: JsonReader, create: (Int, String) -> T): T {
+        var value = 0
+        var text = ""
+
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return create(value, text)
+        }
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "value" -> value = readInt(reader) ?: 0
+                "text" -> text = readString(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return create(value, text)
+    }
+
+    private fun <T> readArray(reader: JsonReader, readItem: (JsonReader) -> T): ArrayList<T>? {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue()
+            return null
+        }
+
+        val items = ArrayList<T>()
+        reader.beginArray()
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                items.add(readItem(reader))
+            } else {
+                reader.skipValue()
+            }
+        }
+        reader.endArray()
+
+        return items
+    }
+
+    private fun readString(reader: JsonReader): String {
+        return if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            ""
+        } else {
+            reader.nextString()
+        }
+    }
+
+    private fun readInt(reader: JsonReader): Int? {
+        return if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            null
+        } else {
+            // values may contain fractions, like distances in meters
+            reader.nextDouble().toInt()
+        }
+    }
+
+}
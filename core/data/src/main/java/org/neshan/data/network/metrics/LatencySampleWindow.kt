@@ -0,0 +1,48 @@
+package org.neshan.data.network.metrics
+
+import kotlin.math.ceil
+
+/**
+ * sliding window of latest [capacity] latency samples (in milliseconds), percentiles are
+ * calculated exactly over samples in the window
+ * */
+class LatencySampleWindow(private val capacity: Int = DEFAULT_CAPACITY) {
+
+    companion object {
+        const val DEFAULT_CAPACITY = 200
+    }
+
+    private val mSamples = LongArray(capacity)
+
+    // number of recorded samples, may exceed capacity
+    private var mRecordCount = 0
+
+    @Synchronized
+    fun record(latencyMillis: Long) {
+        mSamples[mRecordCount % capacity] = latencyMillis
+        mRecordCount++
+    }
+
+    @Synchronized
+    fun sampleCount(): Int = minOf(mRecordCount, capacity)
+
+    /**
+     * returns latency value which [percentile] percent of samples are lower or equal to it,
+     * null if there is no sample
+     * @param percentile: a value between 0 and 100
+     * */
+    @Synchronized
+    fun percentile(percentile: Double): Long? {
+        val sampleCount = sampleCount()
+        if (sampleCount == 0) {
+            return null
+        }
+
+        val sortedSamples = mSamples.copyOf(sampleCount)
+        sortedSamples.sort()
+
+        val rank = ceil(percentile.coerceIn(0.0, 100.0) / 100 * sampleCount).toInt()
+        return sortedSamples[(rank - 1).coerceIn(0, sampleCount - 1)]
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.neshan.data.network.metrics
+
+import okhttp3.EventListener
+import java.util.EnumMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * collects per endpoint network timings and transferred bytes of api calls,
+ * values are recorded by [NetworkMetricsEventListener]
+ * */
+@Singleton
+class NetworkMetrics @Inject constructor() {
+
+    /**
+     * measured phases of a network call
+     * */
+    enum class Phase {
+        DNS, CONNECT, TLS, TIME_TO_FIRST_BYTE, BODY_DOWNLOAD, TOTAL
+    }
+
+    private val mEndpoints = ConcurrentHashMap<String, EndpointMetrics>()
+
+    fun eventListenerFactory(): EventListener.Factory {
+        return NetworkMetricsEventListener.Factory(this)
+    }
+
+    fun recordLatency(endpoint: String, phase: Phase, latencyMillis: Long) {
+        getEndpointMetrics(endpoint).sampleWindows.getValue(phase).record(latencyMillis)
+    }
+
+    fun recordCall(endpoint: String, bytesSent: Long, bytesReceived: Long, failed: Boolean) {
+        val metrics = getEndpointMetrics(endpoint)
+        metrics.callCount.incrementAndGet()
+        metrics.bytesSent.addAndGet(bytesSent)
+        metrics.bytesReceived.addAndGet(bytesReceived)
+        if (failed) {
+            metrics.failureCount.incrementAndGet()
+        }
+    }
+
+    fun recordCacheHit(endpoint: String) {
+        getEndpointMetrics(endpoint).cacheHitCount.incrementAndGet()
+    }
+
+    /**
+     * returns latency (in milliseconds) of [phase] for [endpoint] in given percentile,
+     * null if nothing recorded yet
+     * @param endpoint: api path like "v4/reverse"
+     * @param percentile: a value between 0 and 100
+     * */
+    fun percentile(endpoint: String, phase: Phase, percentile: Double): Long? {
+        return mEndpoints[endpoint]?.sampleWindows?.get(phase)?.percentile(percentile)
+    }
+
+    /**
+     * number of latency samples recorded for [phase] of [endpoint]
+     * */
+    fun sampleCount(endpoint: String, phase: Phase): Int {
+        return mEndpoints[endpoint]?.sampleWindows?.get(phase)?.sampleCount() ?: 0
+    }
+
+    fun endpoints(): Set<String> = mEndpoints.keys.toSet()
+
+    /**
+     * creates a snapshot of collected metrics for all endpoints
+     * */
+    fun summaries(): List<EndpointSummary> {
+        return mEndpoints.map { (endpoint, metrics) ->
+            EndpointSummary(
+                endpoint = endpoint,
+                callCount = metrics.callCount.get(),
+                failureCount = metrics.failureCount.get(),
+                cacheHitCount = metrics.cacheHitCount.get(),
+                bytesSent = metrics.bytesSent.get(),
+                bytesReceived = metrics.bytesReceived.get(),
+                latencies = metrics.sampleWindows.mapValues { (_, sampleWindow) ->
+                    Percentiles(
+                        p50 = sampleWindow.percentile(50.0),
+                        p95 = sampleWindow.percentile(95.0),
+                        p99 = sampleWindow.percentile(99.0)
+                    )
+                }
+            )
+        }
+    }
+
+    /**
+     * human readable report of collected metrics, useful for logging
+     * */
+    fun dump(): String {
+        return summaries().joinToString(separator = "\n") { summary ->
+            val latencies = summary.latencies.entries.joinToString(separator = ", ") { (phase, value) ->
+                "$phase(p50=${value.p50}, p95=${value.p95}, p99=${value.p99})"
+            }
+            "${summary.endpoint}: calls=${summary.callCount}, failures=${summary.failureCount}, " +
+                    "cacheHits=${summary.cacheHitCount}, sent=${summary.bytesSent}B, " +
+                    "received=${summary.bytesReceived}B, $latencies"
+        }
+    }
+
+    private fun getEndpointMetrics(endpoint: String): EndpointMetrics {
+        return mEndpoints[endpoint] ?: EndpointMetrics().let { metrics ->
+            mEndpoints.putIfAbsent(endpoint, metrics) ?: metrics
+        }
+    }
+
+    private class EndpointMetrics {
+        val sampleWindows: Map<Phase, LatencySampleWindow> = EnumMap<Phase, LatencySampleWindow>(Phase::class.java).apply {
+            Phase.values().forEach { phase -> put(phase, LatencySampleWindow()) }
+        }
+        val callCount = AtomicInteger()
+        val failureCount = AtomicInteger()
+        val cacheHitCount = AtomicInteger()
+        val bytesSent = AtomicLong()
+        val bytesReceived = AtomicLong()
+    }
+
+    data class Percentiles(val p50: Long?, val p95: Long?, val p99: Long?)
+
+    data class EndpointSummary(
+        val endpoint: String,
+        val callCount: Int,
+        val failureCount: Int,
+        val cacheHitCount: Int,
+        val bytesSent: Long,
+        val bytesReceived: Long,
+        val latencies: Map<Phase, Percentiles>
+    )
+
+}
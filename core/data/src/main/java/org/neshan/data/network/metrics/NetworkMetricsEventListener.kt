@@ -0,0 +1,138 @@
+package org.neshan.data.network.metrics
+
+import okhttp3.*
+import org.neshan.data.network.metrics.NetworkMetrics.Phase
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+
+/**
+ * measures phases of a single call and reports them to [NetworkMetrics] when call finishes.
+ * a new listener is created for every call by [Factory], requests tagged with [Untracked]
+ * are not measured
+ * */
+class NetworkMetricsEventListener(
+    private val metrics: NetworkMetrics,
+    private val endpoint: String
+) : EventListener() {
+
+    companion object {
+        private const val NOT_STARTED = Long.MIN_VALUE
+    }
+
+    /**
+     * request tag for calls which are not api calls, like connection warm up
+     * */
+    object Untracked
+
+    class Factory(private val metrics: NetworkMetrics) : EventListener.Factory {
+        override fun create(call: Call): EventListener {
+            val request = call.request()
+            if (request.tag(Untracked::class.java) != null) {
+                return NONE
+            }
+            return NetworkMetricsEventListener(metrics, request.url.encodedPath.removePrefix("/"))
+        }
+    }
+
+    private var mCallStart = NOT_STARTED
+    private var mDnsStart = NOT_STARTED
+    private var mConnectStart = NOT_STARTED
+    private var mSecureConnectStart = NOT_STARTED
+    private var mRequestEnd = NOT_STARTED
+    private var mResponseBodyStart = NOT_STARTED
+
+    private var mBytesSent = 0L
+    private var mBytesReceived = 0L
+
+    private var mServedFromCache = false
+
+    override fun callStart(call: Call) {
+        mCallStart = now()
+    }
+
+    override fun dnsStart(call: Call, domainName: String) {
+        mDnsStart = now()
+    }
+
+    override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+        record(Phase.DNS, mDnsStart)
+    }
+
+    override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+        mConnectStart = now()
+    }
+
+    override fun secureConnectStart(call: Call) {
+        mSecureConnectStart = now()
+    }
+
+    override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+        record(Phase.TLS, mSecureConnectStart)
+    }
+
+    override fun connectEnd(
+        call: Call,
+        inetSocketAddress: InetSocketAddress,
+        proxy: Proxy,
+        protocol: Protocol?
+    ) {
+        record(Phase.CONNECT, mConnectStart)
+    }
+
+    override fun requestHeadersEnd(call: Call, request: Request) {
+        mRequestEnd = now()
+    }
+
+    override fun requestBodyEnd(call: Call, byteCount: Long) {
+        mRequestEnd = now()
+        mBytesSent += byteCount
+    }
+
+    override fun responseHeadersStart(call: Call) {
+        record(Phase.TIME_TO_FIRST_BYTE, mRequestEnd)
+    }
+
+    override fun responseBodyStart(call: Call) {
+        mResponseBodyStart = now()
+    }
+
+    override fun responseBodyEnd(call: Call, byteCount: Long) {
+        mBytesReceived += byteCount
+        // cached response bodies are read from disk
+        if (!mServedFromCache) {
+            record(Phase.BODY_DOWNLOAD, mResponseBodyStart)
+        }
+    }
+
+    override fun cacheHit(call: Call, response: Response) {
+        mServedFromCache = true
+        metrics.recordCacheHit(endpoint)
+    }
+
+    override fun callEnd(call: Call) {
+        onCallFinished(failed = false)
+    }
+
+    override fun callFailed(call: Call, ioe: IOException) {
+        onCallFinished(failed = true)
+    }
+
+    private fun onCallFinished(failed: Boolean) {
+        // total latency only represents calls which reached the network
+        if (!mServedFromCache && !failed) {
+            record(Phase.TOTAL, mCallStart)
+        }
+        metrics.recordCall(endpoint, mBytesSent, mBytesReceived, failed)
+    }
+
+    private fun record(phase: Phase, startTime: Long) {
+        if (startTime != NOT_STARTED) {
+            metrics.recordLatency(endpoint, phase, (now() - startTime) / 1_000_000)
+        }
+    }
+
+    private fun now(): Long = System.nanoTime()
+
+}
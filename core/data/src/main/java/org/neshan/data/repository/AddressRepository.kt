@@ -0,0 +1,80 @@
+package org.neshan.data.repository
+
+import io.reactivex.rxjava3.core.Maybe
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.neshan.data.cache.ReverseGeocodeCache
+import org.neshan.data.cache.ReverseGeocodeStore
+import org.neshan.data.geocoder.OfflineGeocoder
+import org.neshan.data.model.response.AddressDetailResponse
+import org.neshan.data.network.ApiClient
+import org.neshan.data.network.RequestPriority
+import org.neshan.data.network.RequestScheduler
+import org.neshan.data.network.RetryPolicy
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * resolves address of locations, looks up in-memory cache, then persistent store
+ * and finally sends request to api service. if api service is not reachable, address
+ * is resolved by offline geocoder
+ * */
+@Singleton
+class AddressRepository @Inject constructor(
+    private val apiClient: ApiClient,
+    private val requestScheduler: RequestScheduler,
+    private val memoryCache: ReverseGeocodeCache,
+    private val store: ReverseGeocodeStore,
+    private val offlineGeocoder: OfflineGeocoder
+) {
+
+    @JvmOverloads
+    fun getAddress(
+        latitude: Double,
+        longitude: Double,
+        priority: RequestPriority = RequestPriority.ADDRESS_LOOKUP
+    ): Single<AddressDetailResponse> {
+
+        val cachedAddress = memoryCache.get(latitude, longitude)
+        if (cachedAddress != null) {
+            return Single.just(cachedAddress)
+        }
+
+        return Maybe.defer {
+            val storedAddress = store.findNearest(latitude, longitude)
+            if (storedAddress != null) Maybe.just(storedAddress) else Maybe.empty()
+        }
+            .subscribeOn(Schedulers.io())
+            .doOnSuccess { address -> memoryCache.put(latitude, longitude, address) }
+            .switchIfEmpty(getAddressFromNetwork(latitude, longitude, priority))
+
+    }
+
+    private fun getAddressFromNetwork(
+        latitude: Double,
+        longitude: Double,
+        priority: RequestPriority
+    ): Single<AddressDetailResponse> {
+
+        return requestScheduler.schedule(priority, apiClient.getAddress(latitude, longitude))
+            .compose(RetryPolicy.DEFAULT.apply())
+            .doOnSuccess { response ->
+                if (response.isSuccessFull()) {
+                    memoryCache.put(latitude, longitude, response)
+                    store.put(latitude, longitude, response)
+                }
+            }
+            .onErrorResumeNext { error ->
+                // offline addresses are less accurate, so they are not cached
+                val offlineAddress = if (error is IOException) {
+                    offlineGeocoder.getAddress(latitude, longitude)
+                } else {
+                    null
+                }
+                if (offlineAddress != null) Single.just(offlineAddress) else Single.error(error)
+            }
+
+    }
+
+}
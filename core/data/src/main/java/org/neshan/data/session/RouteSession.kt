@@ -0,0 +1,55 @@
+package org.neshan.data.session
+
+import org.neshan.data.model.LatLng
+import org.neshan.data.model.enums.RoutingType
+import org.neshan.data.model.response.RoutingResponse
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * keeps the route previewed by user, so navigation can start from already decoded route
+ * without loading it again. it lives in memory, after process death navigation has to load
+ * the route itself
+ * */
+@Singleton
+class RouteSession @Inject constructor() {
+
+    data class PreviewedRoute(
+        val routingType: RoutingType,
+        val startPoint: LatLng,
+        val endPoint: LatLng,
+        val response: RoutingResponse
+    )
+
+    @Volatile
+    private var mPreviewedRoute: PreviewedRoute? = null
+
+    fun setPreviewedRoute(
+        routingType: RoutingType,
+        startPoint: LatLng,
+        endPoint: LatLng,
+        response: RoutingResponse
+    ) {
+        mPreviewedRoute = PreviewedRoute(routingType, startPoint, endPoint, response)
+    }
+
+    /**
+     * returns previewed route if it is from [startPoint] to [endPoint]
+     * */
+    fun getPreviewedRoute(startPoint: LatLng, endPoint: LatLng): PreviewedRoute? {
+        val previewedRoute = mPreviewedRoute
+        return if (previewedRoute != null
+            && previewedRoute.startPoint == startPoint
+            && previewedRoute.endPoint == endPoint
+        ) {
+            previewedRoute
+        } else {
+            null
+        }
+    }
+
+    fun clear() {
+        mPreviewedRoute = null
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.neshan.data.util
+
+/**
+ * decodes encoded polylines (precision 5) directly into packed coordinate arrays,
+ * points are stored as [latitude, longitude] pairs one after another
+ * */
+object PolylineDecoder {
+
+    /**
+     * counts points of an encoded polyline without decoding it
+     * */
+    fun countPoints(encoded: CharSequence): Int {
+        var valueCount = 0
+        for (index in 0 until encoded.length) {
+            // each value ends with a chunk without continuation bit
+            if (encoded[index].code - 63 < 0x20) {
+                valueCount++
+            }
+        }
+        return valueCount / 2
+    }
+
+    /**
+     * decodes polyline into a new packed coordinate array
+     * */
+    fun decode(encoded: CharSequence): DoubleArray {
+        val points = DoubleArray(countPoints(encoded) * 2)
+        decodeInto(encoded, points, 0)
+        return points
+    }
+
+    /**
+     * decodes polyline into [target] array starting from [offset]
+     * @return number of written values (twice the number of points)
+     * */
+    fun decodeInto(encoded: CharSequence, target: DoubleArray, offset: Int): Int {
+        val length = encoded.length
+        var index = 0
+        var position = offset
+        var latitude = 0
+        var longitude = 0
+
+        while (index < length) {
+            var result = 0
+            var shift = 0
+            var chunk: Int
+            do {
+                chunk = encoded[index++].code - 63
+                result = result or ((chunk and 0x1f) shl shift)
+                shift += 5
+            } while (chunk >= 0x20 && index < length)
+            latitude += if (result and 1 != 0) (result shr 1).inv() else result shr 1
+
+            // malformed polyline without longitude for last point
+            if (index >= length) break
+
+            result = 0
+            shift = 0
+            do {
+                chunk = encoded[index++].code - 63
+                result = result or ((chunk and 0x1f) shl shift)
+                shift += 5
+            } while (chunk >= 0x20 && index < length)
+            longitude += if (result and 1 != 0) (result shr 1).inv() else result shr 1
+
+            target[position++] = latitude / 1E5
+            target[position++] = longitude / 1E5
+        }
+
+        return position - offset
+    }
+
+}
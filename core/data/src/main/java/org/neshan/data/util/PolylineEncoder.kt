@@ -0,0 +1,48 @@
+package org.neshan.data.util
+
+/**
+ * encodes points with google encoded polyline algorithm (precision 5), the format used by
+ * api service for overview and step polylines. reverse of [PolylineDecoder]
+ * */
+object PolylineEncoder {
+
+    fun encode(latitudes: DoubleArray, longitudes: DoubleArray): String {
+        val result = StringBuilder(latitudes.size * 8)
+
+        var previousLatitude = 0L
+        var previousLongitude = 0L
+        for (index in latitudes.indices) {
+            val latitude = Math.round(latitudes[index] * 1E5)
+            val longitude = Math.round(longitudes[index] * 1E5)
+
+            encodeValue(latitude - previousLatitude, result)
+            encodeValue(longitude - previousLongitude, result)
+
+            previousLatitude = latitude
+            previousLongitude = longitude
+        }
+
+        return result.toString()
+    }
+
+    /**
+     * encodes packed [latitude, longitude] pairs, like points decoded by [PolylineDecoder]
+     * */
+    fun encode(points: DoubleArray): String {
+        val pointCount = points.size / 2
+        return encode(
+            DoubleArray(pointCount) { index -> points[index * 2] },
+            DoubleArray(pointCount) { index -> points[index * 2 + 1] }
+        )
+    }
+
+    private fun encodeValue(value: Long, result: StringBuilder) {
+        var remaining = if (value < 0) (value shl 1).inv() else value shl 1
+        while (remaining >= 0x20) {
+            result.append(((0x20L or (remaining and 0x1f)) + 63).toInt().toChar())
+            remaining = remaining shr 5
+        }
+        result.append((remaining + 63).toInt().toChar())
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.neshan.data.util
+
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.neshan.data.AppConfig
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.response.Step
+
+/**
+ * decodes step geometries of a route on several threads. point counts are read from encoded
+ * polylines first, so each step is copied straight to its place in one preallocated array and
+ * steps are joined in order without another copy
+ * */
+object RouteGeometryDecoder {
+
+    /**
+     * decodes steps into one route geometry, steps are split into contiguous chunks of about
+     * the same number of points, by default one chunk per available processor
+     * */
+    @JvmStatic
+    @JvmOverloads
+    fun decode(
+        steps: List<Step>,
+        scheduler: Scheduler = Schedulers.computation(),
+        maxChunkCount: Int = Runtime.getRuntime().availableProcessors()
+    ): Single<RouteGeometry> {
+        return Single.defer {
+            // offsets[i] is index of first point of step i in route geometry
+            val offsets = IntArray(steps.size + 1)
+            steps.forEachIndexed { index, step ->
+                offsets[index + 1] = offsets[index] + PolylineDecoder.countPoints(step.encodedPolyline)
+            }
+            val pointCount = offsets[steps.size]
+            val points = DoubleArray(pointCount * 2)
+
+            val chunkCount = minOf(maxChunkCount, steps.size)
+            if (pointCount < AppConfig.ROUTE_DECODE_PARALLEL_MIN_POINT_COUNT || chunkCount < 2) {
+                // thread hops cost more than decoding short routes
+                copySteps(steps, offsets, points, 0, steps.size)
+                return@defer Single.just(RouteGeometry(points))
+            }
+
+            val chunks = ArrayList<Completable>(chunkCount)
+            var firstStep = 0
+            for (chunk in 1..chunkCount) {
+                // chunk ends at first step starting after its share of points
+                val endPoint = pointCount.toLong() * chunk / chunkCount
+                var endStep = firstStep
+                while (endStep < steps.size && offsets[endStep] < endPoint) {
+                    endStep++
+                }
+                if (chunk == chunkCount) {
+                    endStep = steps.size
+                }
+
+                if (endStep > firstStep) {
+                    val fromStep = firstStep
+                    val toStep = endStep
+                    chunks.add(
+                        Completable.fromAction { copySteps(steps, offsets, points, fromStep, toStep) }
+                            .subscribeOn(scheduler)
+                    )
+                }
+                firstStep = endStep
+            }
+
+            Completable.merge(chunks).toSingle { RouteGeometry(points) }
+        }
+    }
+
+    /**
+     * decodes steps from [fromStep] (inclusive) to [toStep] (exclusive) straight into [points],
+     * steps are not decoded themselves. points of already decoded steps are only copied
+     * */
+    private fun copySteps(steps: List<Step>, offsets: IntArray, points: DoubleArray, fromStep: Int, toStep: Int) {
+        for (index in fromStep until toStep) {
+            val step = steps[index]
+            if (step.isDecoded()) {
+                val stepPoints = step.points
+                val length = minOf(stepPoints.size, (offsets[index + 1] - offsets[index]) * 2)
+                System.arraycopy(stepPoints, 0, points, offsets[index] * 2, length)
+            } else {
+                PolylineDecoder.decodeInto(step.encodedPolyline, points, offsets[index] * 2)
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.neshan.data.cache
+
+import org.junit.Assert.*
+import org.junit.Test
+import org.neshan.data.model.response.AddressDetailResponse
+
+class ReverseGeocodeCacheTest {
+
+    @Test
+    fun geohash_encodesKnownLocation() {
+
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11))
+
+    }
+
+    @Test
+    fun get_nearbyPointsShareEntry() {
+
+        val cache = ReverseGeocodeCache(precision = 8, maxSize = 10)
+        val address = AddressDetailResponse(routeName = "Azadi")
+
+        cache.put(35.699820, 51.341621, address)
+
+        // about one meter away
+        assertSame(address, cache.get(35.699825, 51.341630))
+        // about one kilometer away
+        assertNull(cache.get(35.708820, 51.341621))
+
+        assertEquals(1, cache.hitCount())
+        assertEquals(1, cache.missCount())
+        assertEquals(0.5f, cache.hitRate())
+
+    }
+
+    @Test
+    fun put_evictsLeastRecentlyUsed() {
+
+        val cache = ReverseGeocodeCache(precision = 8, maxSize = 2)
+
+        cache.put(35.70, 51.30, AddressDetailResponse(routeName = "first"))
+        cache.put(35.71, 51.31, AddressDetailResponse(routeName = "second"))
+
+        // access first entry, so second one becomes least recently used
+        assertNotNull(cache.get(35.70, 51.30))
+
+        cache.put(35.72, 51.32, AddressDetailResponse(routeName = "third"))
+
+        assertEquals(2, cache.size())
+        assertNotNull(cache.get(35.70, 51.30))
+        assertNull(cache.get(35.71, 51.31))
+        assertNotNull(cache.get(35.72, 51.32))
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.neshan.data.cache
+
+import org.junit.Assert.*
+import org.junit.Test
+import org.neshan.data.model.enums.RoutingType
+import org.neshan.data.model.response.*
+
+class RouteCacheTest {
+
+    private var mTime = 0L
+
+    private fun createCache(maxSizeInBytes: Long = 1024 * 1024) = RouteCache(
+        snapInDegrees = 0.0001,
+        bearingBucketInDegrees = 45,
+        ttlMillis = 60_000,
+        maxSizeInBytes = maxSizeInBytes,
+        clock = { mTime }
+    )
+
+    private fun createResponse(pointCount: Int = 10): RoutingResponse {
+        // "??" is an encoded point at (0, 0)
+        val step = Step(
+            "Azadi", "", Distance(100, ""), Duration(10, ""), 0, "??".repeat(pointCount)
+        )
+        val leg = Leg("", Distance(100, ""), Duration(10, ""), arrayListOf(step))
+        return RoutingResponse(arrayListOf(Route(OverviewPolyline(""), arrayListOf(leg))))
+    }
+
+    @Test
+    fun get_snappedPointsAndSameBearingBucket_returnsCachedRoute() {
+
+        val cache = createCache()
+        val response = createResponse()
+
+        cache.put(RoutingType.CAR, 35.70001, 51.30001, 35.75001, 51.35001, 10, response)
+
+        // a few meters away, bearing in same bucket
+        assertSame(response, cache.get(RoutingType.CAR, 35.70003, 51.29998, 35.75002, 51.35000, 30))
+        // different routing type
+        assertNull(cache.get(RoutingType.MOTORCYCLE, 35.70001, 51.30001, 35.75001, 51.35001, 10))
+        // different bearing bucket
+        assertNull(cache.get(RoutingType.CAR, 35.70001, 51.30001, 35.75001, 51.35001, 90))
+        // about 100 meters away
+        assertNull(cache.get(RoutingType.CAR, 35.70101, 51.30001, 35.75001, 51.35001, 10))
+
+        assertEquals(1, cache.hitCount())
+        assertEquals(3, cache.missCount())
+
+    }
+
+    @Test
+    fun get_expiredRoute_returnsNull() {
+
+        val cache = createCache()
+
+        cache.put(RoutingType.CAR, 35.7, 51.3, 35.75, 51.35, 0, createResponse())
+
+        mTime = 59_999
+        assertNotNull(cache.get(RoutingType.CAR, 35.7, 51.3, 35.75, 51.35, 0))
+
+        mTime = 60_000
+        assertNull(cache.get(RoutingType.CAR, 35.7, 51.3, 35.75, 51.35, 0))
+        assertEquals(0, cache.size())
+        assertEquals(0, cache.sizeInBytes())
+
+    }
+
+    @Test
+    fun put_overMemoryBudget_evictsLeastRecentlyUsed() {
+
+        // each route is a bit larger than 8 KB
+        val cache = createCache(maxSizeInBytes = 20 * 1024)
+
+        cache.put(RoutingType.CAR, 35.70, 51.3, 35.75, 51.35, 0, createResponse(400))
+        cache.put(RoutingType.CAR, 35.71, 51.3, 35.75, 51.35, 0, createResponse(400))
+
+        // access first route, so second one becomes least recently used
+        assertNotNull(cache.get(RoutingType.CAR, 35.70, 51.3, 35.75, 51.35, 0))
+
+        cache.put(RoutingType.CAR, 35.72, 51.3, 35.75, 51.35, 0, createResponse(400))
+
+        assertEquals(2, cache.size())
+        assertTrue(cache.sizeInBytes() <= 20 * 1024)
+        assertNotNull(cache.get(RoutingType.CAR, 35.70, 51.3, 35.75, 51.35, 0))
+        assertNull(cache.get(RoutingType.CAR, 35.71, 51.3, 35.75, 51.35, 0))
+
+    }
+
+}
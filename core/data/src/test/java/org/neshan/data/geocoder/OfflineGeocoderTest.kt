@@ -0,0 +1,38 @@
+package org.neshan.data.geocoder
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+class OfflineGeocoderTest {
+
+    @Test
+    fun getAddress_datasetInstalledAfterFirstLookup_isUsed() {
+
+        val directory = Files.createTempDirectory("offline_geocoder").toFile()
+        try {
+            val datasetFile = File(directory, "street_segments.bin")
+            val geocoder = OfflineGeocoder(datasetFile, 100.0)
+
+            assertFalse(geocoder.isAvailable())
+            assertNull(geocoder.getAddress(35.7001, 51.3050))
+
+            // dataset is downloaded while app is running
+            val buffer = StreetSegmentDatasetWriter(cellSize = 0.005)
+                .addSegment(35.7000, 51.3000, 35.7000, 51.3200, "Azadi", "Tehran")
+                .build()
+            datasetFile.writeBytes(ByteArray(buffer.remaining()).also { bytes -> buffer.get(bytes) })
+
+            assertTrue(geocoder.isAvailable())
+            assertEquals("Azadi", geocoder.getAddress(35.7001, 51.3050)?.routeName)
+        } finally {
+            directory.deleteRecursively()
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.neshan.data.geocoder
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * builds street segment datasets in [StreetSegmentIndex] format for tests
+ * */
+class StreetSegmentDatasetWriter(private val cellSize: Double) {
+
+    private class Segment(
+        val latitude1: Float, val longitude1: Float,
+        val latitude2: Float, val longitude2: Float,
+        val streetName: Int, val city: Int
+    )
+
+    private val mSegments = ArrayList<Segment>()
+
+    private val mStrings = LinkedHashMap<String, Int>()
+
+    fun addSegment(
+        latitude1: Double, longitude1: Double,
+        latitude2: Double, longitude2: Double,
+        streetName: String, city: String
+    ): StreetSegmentDatasetWriter {
+        mSegments.add(
+            Segment(
+                latitude1.toFloat(), longitude1.toFloat(),
+                latitude2.toFloat(), longitude2.toFloat(),
+                getStringIndex(streetName), getStringIndex(city)
+            )
+        )
+        return this
+    }
+
+    fun build(): ByteBuffer {
+        val minLatitude = mSegments.minOf { segment -> min(segment.latitude1, segment.latitude2) }.toDouble()
+        val minLongitude = mSegments.minOf { segment -> min(segment.longitude1, segment.longitude2) }.toDouble()
+        val maxLatitude = mSegments.maxOf { segment -> max(segment.latitude1, segment.latitude2) }.toDouble()
+        val maxLongitude = mSegments.maxOf { segment -> max(segment.longitude1, segment.longitude2) }.toDouble()
+
+        val rows = floor((maxLatitude - minLatitude) / cellSize).toInt() + 1
+        val columns = floor((maxLongitude - minLongitude) / cellSize).toInt() + 1
+
+        // register each segment in all cells its bounding box overlaps
+        val cells = Array(rows * columns) { ArrayList<Int>() }
+        mSegments.forEachIndexed { index, segment ->
+            val firstRow = floor((min(segment.latitude1, segment.latitude2) - minLatitude) / cellSize).toInt()
+            val lastRow = floor((max(segment.latitude1, segment.latitude2) - minLatitude) / cellSize).toInt()
+            val firstColumn = floor((min(segment.longitude1, segment.longitude2) - minLongitude) / cellSize).toInt()
+            val lastColumn = floor((max(segment.longitude1, segment.longitude2) - minLongitude) / cellSize).toInt()
+            for (row in firstRow..lastRow) {
+                for (column in firstColumn..lastColumn) {
+                    cells[row * columns + column].add(index)
+                }
+            }
+        }
+
+        val strings = mStrings.keys.map { string -> string.toByteArray(Charsets.UTF_8) }
+        val entryCount = cells.sumOf { cell -> cell.size }
+
+        val size = StreetSegmentIndex.HEADER_SIZE +
+                mSegments.size * StreetSegmentIndex.SEGMENT_SIZE +
+                (cells.size + 1) * 4 + entryCount * 4 +
+                (strings.size + 1) * 4 + strings.sumOf { bytes -> bytes.size }
+
+        val buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putInt(StreetSegmentIndex.MAGIC)
+        buffer.putInt(StreetSegmentIndex.VERSION)
+        buffer.putInt(mSegments.size)
+        buffer.putInt(strings.size)
+        buffer.putDouble(minLatitude)
+        buffer.putDouble(minLongitude)
+        buffer.putDouble(cellSize)
+        buffer.putInt(rows)
+        buffer.putInt(columns)
+
+        mSegments.forEach { segment ->
+            buffer.putFloat(segment.latitude1)
+            buffer.putFloat(segment.longitude1)
+            buffer.putFloat(segment.latitude2)
+            buffer.putFloat(segment.longitude2)
+            buffer.putInt(segment.streetName)
+            buffer.putInt(segment.city)
+        }
+
+        var cellOffset = 0
+        cells.forEach { cell ->
+            buffer.putInt(cellOffset)
+            cellOffset += cell.size
+        }
+        buffer.putInt(cellOffset)
+        cells.forEach { cell -> cell.forEach { segment -> buffer.putInt(segment) } }
+
+        var stringOffset = 0
+        strings.forEach { bytes ->
+            buffer.putInt(stringOffset)
+            stringOffset += bytes.size
+        }
+        buffer.putInt(stringOffset)
+        strings.forEach { bytes -> buffer.put(bytes) }
+
+        buffer.flip()
+        return buffer
+    }
+
+    private fun getStringIndex(string: String): Int {
+        return mStrings.getOrPut(string) { mStrings.size }
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.neshan.data.geocoder
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.util.*
+import kotlin.math.cos
+
+class StreetSegmentIndexTest {
+
+    private fun createTehranIndex(): StreetSegmentIndex {
+        return StreetSegmentIndex(createTehranIndexBuffer())
+    }
+
+    @Test
+    fun findNearestSegment_returnsClosestStreet() {
+
+        val index = createTehranIndex()
+
+        // about 20 meters north of Azadi, far from Navab
+        val azadi = index.findNearestSegment(35.70018, 51.3020, 100.0)
+        assertEquals("Azadi", index.getStreetName(azadi))
+        assertEquals("Tehran", index.getCity(azadi))
+
+        // about 10 meters east of Navab, 300 meters from Azadi
+        val navab = index.findNearestSegment(35.7027, 51.3101, 100.0)
+        assertEquals("Navab", index.getStreetName(navab))
+
+        val chaharbagh = index.findNearestSegment(32.6501, 51.6650, 100.0)
+        assertEquals("Isfahan", index.getCity(chaharbagh))
+
+    }
+
+    @Test
+    fun findNearestSegment_noStreetWithinDistance_returnsMinusOne() {
+
+        val index = createTehranIndex()
+
+        // about 500 meters north of Azadi
+        assertEquals(-1, index.findNearestSegment(35.7045, 51.3020, 100.0))
+        // outside dataset bounds
+        assertEquals(-1, index.findNearestSegment(38.0, 46.3, 100.0))
+
+    }
+
+    @Test
+    fun findNearestSegment_matchesBruteForceSearch() {
+
+        val random = Random(42)
+        val writer = StreetSegmentDatasetWriter(cellSize = 0.002)
+        val segments = ArrayList<DoubleArray>()
+        repeat(5000) { index ->
+            val latitude = 35.6 + random.nextDouble() * 0.2
+            val longitude = 51.2 + random.nextDouble() * 0.3
+            val segment = doubleArrayOf(
+                latitude, longitude,
+                latitude + (random.nextDouble() - 0.5) * 0.004,
+                longitude + (random.nextDouble() - 0.5) * 0.004
+            )
+            segments.add(segment)
+            writer.addSegment(segment[0], segment[1], segment[2], segment[3], "street $index", "Tehran")
+        }
+        val index = StreetSegmentIndex(writer.build())
+
+        repeat(1000) {
+            val latitude = 35.6 + random.nextDouble() * 0.2
+            val longitude = 51.2 + random.nextDouble() * 0.3
+
+            val expected = findNearestByBruteForce(segments, latitude, longitude, 150.0)
+            val actual = index.findNearestSegment(latitude, longitude, 150.0)
+            assertEquals(expected, actual)
+        }
+
+    }
+
+    @Test
+    fun open_readsMemoryMappedFile() {
+
+        val file = File.createTempFile("street_segments", ".bin")
+        try {
+            val buffer = createTehranIndexBuffer()
+            file.writeBytes(ByteArray(buffer.remaining()).also { bytes -> buffer.get(bytes) })
+
+            val index = StreetSegmentIndex.open(file)
+            assertEquals(3, index.segmentCount)
+            assertEquals("Azadi", index.getStreetName(index.findNearestSegment(35.7001, 51.3050, 50.0)))
+        } finally {
+            file.delete()
+        }
+
+    }
+
+    @Test(expected = IOException::class)
+    fun open_invalidDataset_throwsException() {
+
+        StreetSegmentIndex(ByteBuffer.allocate(StreetSegmentIndex.HEADER_SIZE))
+
+    }
+
+    private fun createTehranIndexBuffer(): ByteBuffer {
+        return StreetSegmentDatasetWriter(cellSize = 0.005)
+            // horizontal street
+            .addSegment(35.7000, 51.3000, 35.7000, 51.3200, "Azadi", "Tehran")
+            // vertical street crossing it
+            .addSegment(35.6900, 51.3100, 35.7100, 51.3100, "Navab", "Tehran")
+            // far street in another city
+            .addSegment(32.6500, 51.6600, 32.6500, 51.6700, "Chaharbagh", "Isfahan")
+            .build()
+    }
+
+    private fun findNearestByBruteForce(
+        segments: List<DoubleArray>, latitude: Double, longitude: Double, maxDistanceInMeters: Double
+    ): Int {
+        val scale = cos(Math.toRadians(latitude))
+        var nearest = -1
+        var nearestDistance = maxDistanceInMeters / StreetSegmentIndex.METERS_PER_DEGREE
+        nearestDistance *= nearestDistance
+        segments.forEachIndexed { index, segment ->
+            // same float precision as stored dataset
+            val x1 = (segment[1].toFloat() - longitude) * scale
+            val y1 = segment[0].toFloat() - latitude
+            val x2 = (segment[3].toFloat() - longitude) * scale
+            val y2 = segment[2].toFloat() - latitude
+            val dx = x2 - x1
+            val dy = y2 - y1
+            val lengthSquared = dx * dx + dy * dy
+            val t = if (lengthSquared > 0) (-(x1 * dx + y1 * dy) / lengthSquared).coerceIn(0.0, 1.0) else 0.0
+            val x = x1 + t * dx
+            val y = y1 + t * dy
+            val distance = x * x + y * y
+            if (distance < nearestDistance) {
+                nearestDistance = distance
+                nearest = index
+            }
+        }
+        return nearest
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.neshan.data.model
+
+import org.junit.Assert.*
+import org.junit.Test
+import org.neshan.data.model.response.Distance
+import org.neshan.data.model.response.Duration
+import org.neshan.data.model.response.Step
+
+class RouteGeometryTest {
+
+    @Test
+    fun fromSteps_concatenatesStepPoints() {
+
+        // (38.5, -120.2), (40.7, -120.95) in first step and (2.552, -5.503) in second one
+        val steps = listOf(
+            Step("", "", Distance(0, ""), Duration(0, ""), 0, "_p~iF~ps|U_ulLnnqC"),
+            Step("", "", Distance(0, ""), Duration(0, ""), 0, "_mqNvxq`@")
+        )
+
+        val geometry = RouteGeometry.fromSteps(steps)
+
+        assertEquals(3, geometry.size)
+        assertEquals(40.7, geometry.getLatitude(1), 1E-9)
+        assertEquals(-120.95, geometry.getLongitude(1), 1E-9)
+        assertEquals(2.552, geometry.getLatitude(2), 1E-9)
+        assertEquals(-5.503, geometry.getLongitude(2), 1E-9)
+        // steps are decoded into geometry only
+        assertFalse(steps.any { step -> step.isDecoded() })
+
+    }
+
+    @Test
+    fun builder_addStep_copiesDecodedStep() {
+
+        val step = Step("", "", Distance(0, ""), Duration(0, ""), 0, "_p~iF~ps|U_ulLnnqC")
+        step.points
+
+        val geometry = RouteGeometry.Builder(1).addStep(step).build()
+
+        assertEquals(2, geometry.size)
+        assertEquals(38.5, geometry.getLatitude(0), 1E-9)
+        assertEquals(-120.95, geometry.getLongitude(1), 1E-9)
+
+    }
+
+    @Test
+    fun subGeometry_sharesPointsOfSource() {
+
+        val geometry = RouteGeometry(doubleArrayOf(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0))
+
+        val remained = geometry.subGeometry(1)
+        assertEquals(3, remained.size)
+        assertEquals(3.0, remained.getLatitude(0), 0.0)
+        assertEquals(8.0, remained.getLongitude(2), 0.0)
+
+        val middle = remained.subGeometry(1, 2)
+        assertEquals(1, middle.size)
+        assertEquals(5.0, middle.getLatitude(0), 0.0)
+
+        assertTrue(geometry.subGeometry(4).isEmpty())
+        assertThrows(IndexOutOfBoundsException::class.java) { geometry.subGeometry(5) }
+
+    }
+
+    @Test
+    fun builder_builtGeometryUnchangedByLaterPoints() {
+
+        val builder = RouteGeometry.Builder(1)
+        builder.add(1.0, 2.0)
+
+        val first = builder.build()
+        builder.addPoints(doubleArrayOf(3.0, 4.0, 5.0, 6.0))
+            .addGeometry(RouteGeometry(doubleArrayOf(7.0, 8.0, 9.0, 10.0)), 1)
+
+        val second = builder.build()
+
+        assertEquals(1, first.size)
+        assertEquals(2.0, first.getLongitude(0), 0.0)
+        assertEquals(4, second.size)
+        assertEquals(5.0, second.getLatitude(2), 0.0)
+        assertEquals(10.0, second.getLongitude(3), 0.0)
+
+    }
+
+    @Test
+    fun builder_addEncodedPolyline_growsBuffer() {
+
+        val geometry = RouteGeometry.Builder(1)
+            .add(1.0, 2.0)
+            .addEncodedPolyline("_p~iF~ps|U_ulLnnqC_mqNvxq`@")
+            .build()
+
+        assertEquals(4, geometry.size)
+        assertEquals(38.5, geometry.getLatitude(1), 1E-9)
+        assertEquals(-126.453, geometry.getLongitude(3), 1E-9)
+
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.neshan.data.model
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+import kotlin.math.cos
+import kotlin.math.pow
+import kotlin.math.sqrt
+
+class SimplifiedRouteGeometryTest {
+
+    private fun createRandomWalk(pointCount: Int, random: Random): RouteGeometry {
+        val builder = RouteGeometry.Builder(pointCount)
+        var latitude = 35.70
+        var longitude = 51.30
+        var direction = 0.0
+        repeat(pointCount) {
+            builder.add(latitude, longitude)
+            direction += (random.nextDouble() - 0.5) * 0.8
+            // about 10 meters
+            latitude += Math.cos(direction) * 0.00009
+            longitude += Math.sin(direction) * 0.00011
+        }
+        return builder.build()
+    }
+
+    /**
+     * distance of point to polyline in meters, with the same local projection as simplification
+     * */
+    private fun getDistanceToPath(latitude: Double, longitude: Double, path: RouteGeometry): Double {
+        val scale = cos(Math.toRadians(35.70)) * 111_320.0
+        var minDistance = Double.MAX_VALUE
+        for (index in 0 until path.size - 1) {
+            val x1 = path.getLongitude(index) * scale
+            val y1 = path.getLatitude(index) * 111_320.0
+            val dx = path.getLongitude(index + 1) * scale - x1
+            val dy = path.getLatitude(index + 1) * 111_320.0 - y1
+            val px = longitude * scale - x1
+            val py = latitude * 111_320.0 - y1
+            val lengthSquared = dx * dx + dy * dy
+            val t = if (lengthSquared > 0) ((px * dx + py * dy) / lengthSquared).coerceIn(0.0, 1.0) else 0.0
+            val ex = px - t * dx
+            val ey = py - t * dy
+            minDistance = minOf(minDistance, sqrt(ex * ex + ey * ey))
+        }
+        return minDistance
+    }
+
+    @Test
+    fun getGeometry_allPointsWithinToleranceOfLevel() {
+
+        val geometry = createRandomWalk(3000, Random(42))
+        val simplified = SimplifiedRouteGeometry.create(geometry, 5, 17, 1.0)
+
+        var previousSize = 0
+        for (zoom in 5 until 17) {
+            val level = simplified.getGeometry(zoom.toFloat())
+            val tolerance = 156_543.03 * cos(Math.toRadians(35.70)) / 2.0.pow(zoom)
+
+            // levels get more detailed as map zooms in
+            assertTrue(level.size >= previousSize)
+            assertTrue(level.size < geometry.size)
+            previousSize = level.size
+
+            for (index in 0 until geometry.size) {
+                val distance = getDistanceToPath(geometry.getLatitude(index), geometry.getLongitude(index), level)
+                assertTrue("zoom $zoom, point $index", distance <= tolerance + 1E-6)
+            }
+        }
+
+        assertEquals(geometry.size, simplified.getGeometry(17f).size)
+        assertEquals(-1, simplified.getLevel(18.5f))
+
+    }
+
+    @Test
+    fun getGeometry_fromIndex_startsAtRoutePoint() {
+
+        val geometry = RouteGeometry(
+            doubleArrayOf(35.700, 51.300, 35.700, 51.301, 35.700, 51.302, 35.700, 51.303, 35.710, 51.303)
+        )
+        val simplified = SimplifiedRouteGeometry.create(geometry, 5, 17, 1.0)
+
+        // collinear points are dropped when zoomed out
+        val level = simplified.getGeometry(10f)
+        assertEquals(3, level.size)
+        assertEquals(51.303, level.getLongitude(1), 1E-9)
+
+        val remained = simplified.getGeometry(10f, 1)
+        assertEquals(3, remained.size)
+        assertEquals(51.301, remained.getLongitude(0), 1E-9)
+        assertEquals(35.710, remained.getLatitude(2), 1E-9)
+
+        assertEquals(4, simplified.getGeometry(17f, 1).size)
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.subjects.SingleSubject
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.neshan.data.model.response.AddressDetailResponse
+import org.neshan.data.model.response.RoutingResponse
+import java.io.IOException
+
+class CoalescingApiClientTest {
+
+    // upstream requests, a new subject is created for each subscription
+    private val mRequests = ArrayList<SingleSubject<RoutingResponse>>()
+
+    private val mApiClient = CoalescingApiClient(object : ApiClient {
+
+        override fun getAddress(lat: Double, lng: Double): Single<AddressDetailResponse> {
+            throw UnsupportedOperationException()
+        }
+
+        override fun getDirection(type: String, startPoint: String, endPoint: String, bearing: Int): Single<RoutingResponse> {
+            return Single.defer {
+                SingleSubject.create<RoutingResponse>().also { mRequests.add(it) }
+            }
+        }
+
+    })
+
+    private fun getDirection(endPoint: String = "35.75,51.35") =
+        mApiClient.getDirection("car", "35.7,51.3", endPoint, 0)
+
+    @Test
+    fun getDirection_identicalConcurrentCalls_subscribeUpstreamOnce() {
+
+        val observer1 = getDirection().test()
+        val observer2 = getDirection().test()
+        // different request is not shared
+        val observer3 = getDirection("35.8,51.4").test()
+
+        assertEquals(2, mRequests.size)
+
+        val response = RoutingResponse(arrayListOf())
+        mRequests[0].onSuccess(response)
+
+        observer1.assertValue(response)
+        observer2.assertValue(response)
+        observer3.assertNoValues()
+
+    }
+
+    @Test
+    fun getDirection_error_isDeliveredToAllSubscribers() {
+
+        val observer1 = getDirection().test()
+        val observer2 = getDirection().test()
+
+        val error = IOException()
+        mRequests.single().onError(error)
+
+        observer1.assertError(error)
+        observer2.assertError(error)
+
+    }
+
+    @Test
+    fun getDirection_afterRequestFinished_requestsAgain() {
+
+        getDirection().test()
+        mRequests.single().onSuccess(RoutingResponse(arrayListOf()))
+
+        val observer = getDirection().test()
+
+        assertEquals(2, mRequests.size)
+        observer.assertNoValues()
+
+        // a failed request is removed too
+        mRequests[1].onError(IOException())
+        getDirection().test()
+
+        assertEquals(3, mRequests.size)
+
+    }
+
+}
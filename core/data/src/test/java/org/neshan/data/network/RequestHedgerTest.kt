@@ -0,0 +1,123 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.TestScheduler
+import io.reactivex.rxjava3.subjects.SingleSubject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.neshan.data.network.metrics.NetworkMetrics
+import java.util.concurrent.TimeUnit
+
+class RequestHedgerTest {
+
+    companion object {
+        private const val ENDPOINT = "v4/direction/no-traffic"
+    }
+
+    private val mScheduler = TestScheduler()
+
+    private val mNetworkMetrics = NetworkMetrics()
+
+    private val mHedger = RequestHedger(mNetworkMetrics, mScheduler)
+
+    // attempts of original and hedged requests, new subjects are created for each subscription
+    private val mRequests = ArrayList<SingleSubject<String>>()
+    private val mHedgedRequests = ArrayList<SingleSubject<String>>()
+
+    private val mRequest = Single.defer { SingleSubject.create<String>().also { mRequests.add(it) } }
+    private val mHedgedRequest = Single.defer { SingleSubject.create<String>().also { mHedgedRequests.add(it) } }
+
+    private fun recordLatencies(latencyMillis: Long, count: Int = 20) {
+        repeat(count) {
+            mNetworkMetrics.recordLatency(ENDPOINT, NetworkMetrics.Phase.TOTAL, latencyMillis)
+        }
+    }
+
+    @Test
+    fun getHedgeDelay_usesMeasuredP95WithinBounds() {
+
+        // not enough samples
+        recordLatencies(800, count = 5)
+        assertEquals(1500, mHedger.getHedgeDelay(ENDPOINT))
+
+        recordLatencies(800)
+        assertEquals(800, mHedger.getHedgeDelay(ENDPOINT))
+
+        recordLatencies(20_000)
+        assertEquals(5000, mHedger.getHedgeDelay(ENDPOINT))
+
+    }
+
+    @Test
+    fun getHedgeDelay_staysBelowAttemptTimeout() {
+
+        recordLatencies(6000)
+
+        assertEquals(2000, mHedger.getHedgeDelay(ENDPOINT, 4000))
+        // timeout cap wins over minimum delay
+        assertEquals(200, mHedger.getHedgeDelay(ENDPOINT, 400))
+
+    }
+
+    @Test
+    fun hedge_fastResponse_doesNotSendHedgedRequest() {
+
+        recordLatencies(1000)
+
+        val observer = mHedger.hedge(ENDPOINT, mRequest, mHedgedRequest).test()
+
+        mScheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS)
+        mRequests.single().onSuccess("first")
+        mScheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        observer.assertValue("first")
+        assertTrue(mHedgedRequests.isEmpty())
+
+    }
+
+    @Test
+    fun hedge_slowResponse_hedgedRequestWinsAndCancelsFirst() {
+
+        recordLatencies(1000)
+
+        val observer = mHedger.hedge(ENDPOINT, mRequest, mHedgedRequest).test()
+
+        mScheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS)
+        assertTrue(mHedgedRequests.isEmpty())
+        mScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+
+        mHedgedRequests.single().onSuccess("hedged")
+
+        observer.assertValue("hedged")
+        assertFalse(mRequests.single().hasObservers())
+
+    }
+
+    @Test
+    fun hedge_slowNetworkWithAttemptTimeout_sendsHedgeInEveryAttempt() {
+
+        // p95 is above attempt timeout, hedge would never be sent without the cap
+        recordLatencies(6000)
+        val retryPolicy = RetryPolicy(maxRetries = 1, attemptTimeoutMillis = 4000, scheduler = mScheduler)
+
+        val observer = mHedger.hedge(ENDPOINT, mRequest, mHedgedRequest, retryPolicy)
+            .compose(retryPolicy.apply())
+            .test()
+
+        mScheduler.advanceTimeBy(2000, TimeUnit.MILLISECONDS)
+        assertEquals(1, mHedgedRequests.size)
+
+        // both time out, hedged again on retry
+        mScheduler.advanceTimeBy(2000 + 1000, TimeUnit.MILLISECONDS)
+        assertEquals(2, mRequests.size)
+        mScheduler.advanceTimeBy(2000, TimeUnit.MILLISECONDS)
+        assertEquals(2, mHedgedRequests.size)
+
+        mHedgedRequests[1].onSuccess("hedged")
+        observer.assertValue("hedged")
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import io.reactivex.rxjava3.subjects.SingleSubject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class RequestSchedulerTest {
+
+    // started requests by name, each request answers when its subject is completed
+    private val mStartedRequests = LinkedHashMap<String, SingleSubject<String>>()
+
+    private fun createRequest(name: String): Single<String> {
+        return Single.defer { SingleSubject.create<String>().also { mStartedRequests[name] = it } }
+    }
+
+    // requests are subscribed synchronously
+    private fun createScheduler(maxConcurrentRequests: Int) =
+        RequestScheduler(maxConcurrentRequests, Schedulers.trampoline())
+
+    @Test
+    fun schedule_freeSlots_startsRequestsInPriorityOrder() {
+
+        val scheduler = createScheduler(maxConcurrentRequests = 1)
+
+        val prefetch = scheduler.schedule(RequestPriority.PREFETCH, createRequest("prefetch")).test()
+        scheduler.schedule(RequestPriority.ADDRESS_LOOKUP, createRequest("address")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("navigation")).test()
+
+        assertEquals(listOf("prefetch"), mStartedRequests.keys.toList())
+        assertEquals(1, scheduler.pendingCount(RequestPriority.NAVIGATION))
+        assertEquals(1, scheduler.pendingCount(RequestPriority.ADDRESS_LOOKUP))
+
+        // navigation is started before earlier scheduled address lookup
+        mStartedRequests.getValue("prefetch").onSuccess("done")
+        prefetch.assertValue("done")
+        assertEquals(listOf("prefetch", "navigation"), mStartedRequests.keys.toList())
+
+        mStartedRequests.getValue("navigation").onError(RuntimeException())
+        assertEquals(listOf("prefetch", "navigation", "address"), mStartedRequests.keys.toList())
+
+    }
+
+    @Test
+    fun schedule_classCapReached_queuesOnlyThatClass() {
+
+        val scheduler = createScheduler(maxConcurrentRequests = 4)
+
+        scheduler.schedule(RequestPriority.PREFETCH, createRequest("prefetch1")).test()
+        scheduler.schedule(RequestPriority.PREFETCH, createRequest("prefetch2")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("navigation1")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("navigation2")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("navigation3")).test()
+
+        assertEquals(listOf("prefetch1", "navigation1", "navigation2"), mStartedRequests.keys.toList())
+        assertEquals(1, scheduler.runningCount(RequestPriority.PREFETCH))
+        assertEquals(1, scheduler.pendingCount(RequestPriority.PREFETCH))
+        assertEquals(2, scheduler.runningCount(RequestPriority.NAVIGATION))
+        assertEquals(1, scheduler.pendingCount(RequestPriority.NAVIGATION))
+
+        mStartedRequests.getValue("prefetch1").onSuccess("done")
+        assertTrue(mStartedRequests.containsKey("prefetch2"))
+        assertFalse(mStartedRequests.containsKey("navigation3"))
+
+    }
+
+    @Test
+    fun dispose_runningRequest_releasesSlot() {
+
+        val scheduler = createScheduler(maxConcurrentRequests = 1)
+
+        val first = scheduler.schedule(RequestPriority.NAVIGATION, createRequest("first")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("second")).test()
+
+        first.dispose()
+
+        assertFalse(mStartedRequests.getValue("first").hasObservers())
+        assertTrue(mStartedRequests.containsKey("second"))
+        assertEquals(1, scheduler.runningCount(RequestPriority.NAVIGATION))
+
+    }
+
+    @Test
+    fun dispose_queuedRequest_isNeverStarted() {
+
+        val scheduler = createScheduler(maxConcurrentRequests = 1)
+
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("first")).test()
+        val second = scheduler.schedule(RequestPriority.NAVIGATION, createRequest("second")).test()
+        scheduler.schedule(RequestPriority.NAVIGATION, createRequest("third")).test()
+
+        second.dispose()
+        assertEquals(1, scheduler.pendingCount(RequestPriority.NAVIGATION))
+
+        mStartedRequests.getValue("first").onSuccess("done")
+
+        assertEquals(listOf("first", "third"), mStartedRequests.keys.toList())
+        assertEquals(1, scheduler.runningCount(RequestPriority.NAVIGATION))
+
+    }
+
+}
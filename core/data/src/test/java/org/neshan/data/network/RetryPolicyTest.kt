@@ -0,0 +1,143 @@
+package org.neshan.data.network
+
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.TestScheduler
+import io.reactivex.rxjava3.subjects.SingleSubject
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import retrofit2.HttpException
+import retrofit2.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import kotlin.random.Random
+
+class RetryPolicyTest {
+
+    private val mScheduler = TestScheduler()
+
+    // jitter is always zero, delays are half of backoff
+    private val mNoJitter = object : Random() {
+        override fun nextBits(bitCount: Int): Int = 0
+    }
+
+    // upstream attempts, a new subject is created for each subscription
+    private val mAttempts = ArrayList<SingleSubject<String>>()
+
+    private val mUpstream = Single.defer { SingleSubject.create<String>().also { mAttempts.add(it) } }
+
+    private fun createPolicy(attemptTimeoutMillis: Long? = null) = RetryPolicy(
+        maxRetries = 2,
+        initialDelayMillis = 400,
+        maxDelayMillis = 1000,
+        attemptTimeoutMillis = attemptTimeoutMillis,
+        random = mNoJitter,
+        scheduler = mScheduler
+    )
+
+    @Test
+    fun getDelay_growsExponentiallyUpToMaxDelay() {
+
+        val policy = createPolicy()
+
+        assertEquals(200, policy.getDelay(1))
+        assertEquals(400, policy.getDelay(2))
+        // backoff 1600 is capped at 1000
+        assertEquals(500, policy.getDelay(3))
+
+        val jitteredPolicy = RetryPolicy(initialDelayMillis = 400, maxDelayMillis = 1000, random = Random(42))
+        repeat(100) {
+            val delay = jitteredPolicy.getDelay(2)
+            assertTrue("delay $delay", delay in 400..800)
+        }
+
+    }
+
+    @Test
+    fun apply_connectionFailure_isRetriedAfterBackoff() {
+
+        val observer = mUpstream.compose(createPolicy().apply()).test()
+
+        mAttempts[0].onError(IOException())
+        mScheduler.advanceTimeBy(199, TimeUnit.MILLISECONDS)
+        assertEquals(1, mAttempts.size)
+        mScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS)
+        assertEquals(2, mAttempts.size)
+
+        mAttempts[1].onError(IOException())
+        mScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS)
+        assertEquals(3, mAttempts.size)
+
+        mAttempts[2].onSuccess("route")
+        observer.assertValue("route")
+
+    }
+
+    @Test
+    fun apply_retriesExhausted_passesLastError() {
+
+        val observer = mUpstream.compose(createPolicy().apply()).test()
+
+        val error = IOException()
+        mAttempts[0].onError(IOException())
+        mScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS)
+        mAttempts[1].onError(IOException())
+        mScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS)
+        mAttempts[2].onError(error)
+
+        observer.assertError(error)
+        assertEquals(3, mAttempts.size)
+
+    }
+
+    @Test
+    fun apply_clientError_isNotRetried() {
+
+        val observer = mUpstream.compose(createPolicy().apply()).test()
+
+        val error = HttpException(Response.error<String>(404, "".toResponseBody()))
+        mAttempts[0].onError(error)
+        mScheduler.advanceTimeBy(10, TimeUnit.SECONDS)
+
+        observer.assertError(error)
+        assertEquals(1, mAttempts.size)
+
+    }
+
+    @Test
+    fun apply_attemptTimeout_retriesSlowAttempt() {
+
+        val observer = mUpstream.compose(createPolicy(attemptTimeoutMillis = 1000).apply()).test()
+
+        mScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+        // timed out attempt is cancelled and retried after backoff
+        assertEquals(false, mAttempts[0].hasObservers())
+        mScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS)
+        assertEquals(2, mAttempts.size)
+
+        mScheduler.advanceTimeBy(1400, TimeUnit.MILLISECONDS)
+        mScheduler.advanceTimeBy(1000, TimeUnit.MILLISECONDS)
+
+        observer.assertError(TimeoutException::class.java)
+        assertEquals(3, mAttempts.size)
+
+    }
+
+    @Test
+    fun isServiceUnavailable_networkFailuresTimeoutsAndServerErrors() {
+
+        assertTrue(RetryPolicy.isServiceUnavailable(IOException()))
+        assertTrue(RetryPolicy.isServiceUnavailable(TimeoutException()))
+        assertTrue(RetryPolicy.isServiceUnavailable(HttpException(Response.error<String>(503, "".toResponseBody()))))
+
+        // rate limited and client errors are answers of a reachable service
+        assertFalse(RetryPolicy.isServiceUnavailable(HttpException(Response.error<String>(429, "".toResponseBody()))))
+        assertFalse(RetryPolicy.isServiceUnavailable(HttpException(Response.error<String>(404, "".toResponseBody()))))
+        assertFalse(RetryPolicy.isServiceUnavailable(IllegalStateException()))
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.neshan.data.network
+
+import com.google.gson.GsonBuilder
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.neshan.data.model.response.*
+
+class RoutingResponseTypeAdapterTest {
+
+    private val mGson = GsonBuilder()
+        .registerTypeAdapter(RoutingResponse::class.java, RoutingResponseTypeAdapter())
+        .create()
+
+    @Test
+    fun toJson_writtenResponse_isReadBack() {
+
+        val step = Step("Azadi", "turn right", Distance(120, "120 m"), Duration(15, "1 min"), 90, "_p~iF~ps|U")
+        val leg = Leg("Azadi", Distance(120, "120 m"), Duration(15, "1 min"), arrayListOf(step))
+        val response = RoutingResponse.success(arrayListOf(Route(OverviewPolyline("_p~iF~ps|U"), arrayListOf(leg))))
+        // decoded points are not written
+        step.points
+
+        val json = mGson.toJson(response)
+        val result = mGson.fromJson(json, RoutingResponse::class.java)
+
+        assertEquals(response, result)
+        assertEquals("OK", result.status)
+        assertEquals(false, result.routes!![0].legs[0].steps[0].isDecoded())
+
+    }
+
+    @Test
+    fun toJson_nullResponse_writesNull() {
+
+        assertEquals("null", mGson.toJson(null, RoutingResponse::class.java))
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.neshan.data.network.metrics
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class LatencySampleWindowTest {
+
+    @Test
+    fun percentile_returnsNearestRankSample() {
+
+        val window = LatencySampleWindow(capacity = 100)
+        // recorded out of order
+        for (latency in 100 downTo 1) {
+            window.record(latency.toLong())
+        }
+
+        assertEquals(1L, window.percentile(0.0))
+        assertEquals(50L, window.percentile(50.0))
+        assertEquals(95L, window.percentile(95.0))
+        assertEquals(96L, window.percentile(95.5))
+        assertEquals(100L, window.percentile(100.0))
+
+    }
+
+    @Test
+    fun percentile_onlyUsesSamplesInWindow() {
+
+        val window = LatencySampleWindow(capacity = 10)
+        for (latency in 1..10) {
+            window.record(latency * 1000L)
+        }
+        // replaces all slow samples
+        for (latency in 1..10) {
+            window.record(latency.toLong())
+        }
+
+        assertEquals(10, window.sampleCount())
+        assertEquals(10L, window.percentile(95.0))
+
+    }
+
+    @Test
+    fun percentile_noSample_returnsNull() {
+
+        assertNull(LatencySampleWindow().percentile(95.0))
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.neshan.data.network.metrics
+
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.neshan.data.network.metrics.NetworkMetrics.Phase
+import java.io.IOException
+import java.net.InetAddress
+
+class NetworkMetricsEventListenerTest {
+
+    private val mMetrics = NetworkMetrics()
+
+    private val mRequest = Request.Builder().url("https://api.neshan.org/v4/reverse?lat=35.7&lng=51.4").build()
+
+    // call is only created, never executed
+    private val mCall = OkHttpClient().newCall(mRequest)
+
+    private fun createListener() = NetworkMetricsEventListener.Factory(mMetrics).create(mCall)
+
+    @Test
+    fun networkCall_recordsPhasesUnderEndpoint() {
+
+        val listener = createListener()
+        listener.callStart(mCall)
+        listener.dnsStart(mCall, "api.neshan.org")
+        listener.dnsEnd(mCall, "api.neshan.org", listOf(InetAddress.getLoopbackAddress()))
+        listener.requestHeadersEnd(mCall, mRequest)
+        listener.responseHeadersStart(mCall)
+        listener.responseBodyStart(mCall)
+        listener.responseBodyEnd(mCall, 512)
+        listener.callEnd(mCall)
+
+        assertEquals(setOf("v4/reverse"), mMetrics.endpoints())
+        assertEquals(1, mMetrics.sampleCount("v4/reverse", Phase.DNS))
+        assertEquals(1, mMetrics.sampleCount("v4/reverse", Phase.TIME_TO_FIRST_BYTE))
+        assertEquals(1, mMetrics.sampleCount("v4/reverse", Phase.BODY_DOWNLOAD))
+        assertEquals(1, mMetrics.sampleCount("v4/reverse", Phase.TOTAL))
+        // connection was reused
+        assertEquals(0, mMetrics.sampleCount("v4/reverse", Phase.CONNECT))
+
+        val summary = mMetrics.summaries().single()
+        assertEquals(1, summary.callCount)
+        assertEquals(0, summary.failureCount)
+        assertEquals(512L, summary.bytesReceived)
+
+    }
+
+    @Test
+    fun cachedCall_isNotRecordedAsNetworkLatency() {
+
+        val response = Response.Builder()
+            .request(mRequest)
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .build()
+
+        val listener = createListener()
+        listener.callStart(mCall)
+        listener.cacheHit(mCall, response)
+        listener.responseBodyStart(mCall)
+        listener.responseBodyEnd(mCall, 512)
+        listener.callEnd(mCall)
+
+        assertEquals(0, mMetrics.sampleCount("v4/reverse", Phase.BODY_DOWNLOAD))
+        assertEquals(0, mMetrics.sampleCount("v4/reverse", Phase.TOTAL))
+        assertEquals(1, mMetrics.summaries().single().cacheHitCount)
+
+    }
+
+    @Test
+    fun untrackedCall_isNotMeasured() {
+
+        val request = mRequest.newBuilder()
+            .tag(NetworkMetricsEventListener.Untracked::class.java, NetworkMetricsEventListener.Untracked)
+            .build()
+        val call = OkHttpClient().newCall(request)
+
+        val listener = NetworkMetricsEventListener.Factory(mMetrics).create(call)
+        listener.callStart(call)
+        listener.callEnd(call)
+
+        assertEquals(emptySet<String>(), mMetrics.endpoints())
+
+    }
+
+    @Test
+    fun failedCall_isCountedWithoutLatency() {
+
+        val listener = createListener()
+        listener.callStart(mCall)
+        listener.callFailed(mCall, IOException())
+
+        assertEquals(0, mMetrics.sampleCount("v4/reverse", Phase.TOTAL))
+        assertEquals(1, mMetrics.summaries().single().failureCount)
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.neshan.data.util
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PolylineDecoderTest {
+
+    private val encodedPolyline = "_p~iF~ps|U_ulLnnqC_mqNvxq`@"
+
+    private val expectedPoints = doubleArrayOf(
+        38.5, -120.2,
+        40.7, -120.95,
+        43.252, -126.453
+    )
+
+    @Test
+    fun countPoints_countsWithoutDecoding() {
+
+        assertEquals(3, PolylineDecoder.countPoints(encodedPolyline))
+        assertEquals(0, PolylineDecoder.countPoints(""))
+
+    }
+
+    @Test
+    fun decode_returnsPackedCoordinates() {
+
+        val points = PolylineDecoder.decode(encodedPolyline)
+
+        assertArrayEquals(expectedPoints, points, 1E-9)
+
+    }
+
+    @Test
+    fun decodeInto_writesFromOffset() {
+
+        val target = DoubleArray(8)
+        val writtenValues = PolylineDecoder.decodeInto(encodedPolyline, target, 2)
+
+        assertEquals(6, writtenValues)
+        assertArrayEquals(expectedPoints, target.copyOfRange(2, 8), 1E-9)
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.neshan.data.util
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PolylineEncoderTest {
+
+    @Test
+    fun encode_matchesReferencePolyline() {
+
+        val encoded = PolylineEncoder.encode(
+            doubleArrayOf(38.5, 40.7, 43.252),
+            doubleArrayOf(-120.2, -120.95, -126.453)
+        )
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encoded)
+
+    }
+
+    @Test
+    fun encode_packedPoints_roundTripsWithDecoder() {
+
+        val points = doubleArrayOf(35.70001, 51.40002, 35.69, 51.41234, 0.0, -179.99999)
+
+        assertArrayEquals(points, PolylineDecoder.decode(PolylineEncoder.encode(points)), 1E-9)
+        assertEquals("", PolylineEncoder.encode(DoubleArray(0)))
+
+    }
+
+}
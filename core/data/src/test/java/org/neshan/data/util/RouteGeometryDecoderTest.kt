@@ -0,0 +1,80 @@
+package org.neshan.data.util
+
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.response.Distance
+import org.neshan.data.model.response.Duration
+import org.neshan.data.model.response.Step
+import java.util.*
+
+class RouteGeometryDecoderTest {
+
+    /**
+     * steps with random walk geometry around Tehran, encoded with polyline algorithm
+     * */
+    private fun createSteps(stepCount: Int, random: Random): List<Step> {
+        return List(stepCount) {
+            val pointCount = 1 + random.nextInt(100)
+            val points = DoubleArray(pointCount * 2)
+            var latitude = 3_570_000 + random.nextInt(1000)
+            var longitude = 5_130_000 + random.nextInt(1000)
+            for (index in 0 until pointCount) {
+                points[index * 2] = latitude / 1E5
+                points[index * 2 + 1] = longitude / 1E5
+                latitude += random.nextInt(41) - 20
+                longitude += random.nextInt(41) - 20
+            }
+            Step("", "", Distance(0, ""), Duration(0, ""), 0, PolylineEncoder.encode(points))
+        }
+    }
+
+    private fun assertGeometryEquals(expected: RouteGeometry, actual: RouteGeometry) {
+        assertEquals(expected.size, actual.size)
+        for (index in 0 until expected.size) {
+            assertEquals(expected.getLatitude(index), actual.getLatitude(index), 0.0)
+            assertEquals(expected.getLongitude(index), actual.getLongitude(index), 0.0)
+        }
+    }
+
+    @Test
+    fun decode_longRoute_joinsStepsInOrder() {
+
+        val steps = createSteps(500, Random(42))
+        val expected = RouteGeometry.fromSteps(createSteps(500, Random(42)))
+        assertTrue(expected.size > 4000)
+
+        val geometry = RouteGeometryDecoder.decode(steps, Schedulers.computation(), 4).blockingGet()
+
+        assertGeometryEquals(expected, geometry)
+        // points are decoded into route geometry only, steps stay encoded
+        assertTrue(steps.none { step -> step.isDecoded() })
+
+    }
+
+    @Test
+    fun decode_shortRoute_joinsStepsInOrder() {
+
+        val steps = createSteps(5, Random(7))
+        val expected = RouteGeometry.fromSteps(createSteps(5, Random(7)))
+
+        assertGeometryEquals(expected, RouteGeometryDecoder.decode(steps).blockingGet())
+        assertEquals(0, RouteGeometryDecoder.decode(emptyList()).blockingGet().size)
+
+    }
+
+    @Test
+    fun decode_decodedSteps_areCopied() {
+
+        val steps = createSteps(5, Random(7))
+        val expected = RouteGeometry.fromSteps(createSteps(5, Random(7)))
+        steps[1].points
+        steps[3].points
+
+        assertGeometryEquals(expected, RouteGeometryDecoder.decode(steps).blockingGet())
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.neshan.routing
+
+/**
+ * finds fastest path between nodes of road graph with A* search, straight line distance at
+ * max speed of the graph is used as heuristic. search state is kept in arrays allocated once
+ * per graph (about 16 bytes per node) and reused, entries of previous searches are told apart
+ * by search id instead of clearing arrays. not thread safe
+ * */
+class AStarRouter(private val graph: RoadGraph) {
+
+    companion object {
+        // keeps heuristic below real travel time despite distance approximation errors
+        private const val HEURISTIC_SCALE = 0.99
+    }
+
+    /**
+     * found path, [edges] are edges between consecutive [nodes]
+     * */
+    class Path(
+        val nodes: IntArray,
+        val edges: IntArray,
+        val durationInSeconds: Double,
+        val lengthInMeters: Double
+    )
+
+    private val mDurations = FloatArray(graph.nodeCount)
+
+    private val mParentEdges = IntArray(graph.nodeCount)
+
+    private val mParentNodes = IntArray(graph.nodeCount)
+
+    // search id in which node is reached (first 31 bits) and settled (last bit)
+    private val mSearchStates = IntArray(graph.nodeCount)
+
+    private var mSearchId = 0
+
+    private val mQueue = NodeQueue()
+
+    /**
+     * number of nodes settled by last search
+     * */
+    var settledNodeCount = 0
+        private set
+
+    fun findPath(startNode: Int, endNode: Int): Path? {
+        startSearch()
+
+        val reached = mSearchId shl 1
+        val settled = reached or 1
+        val heuristicFactor = HEURISTIC_SCALE / graph.maxSpeed
+
+        mSearchStates[startNode] = reached
+        mDurations[startNode] = 0f
+        mParentEdges[startNode] = -1
+        mQueue.add(startNode, (graph.getDistance(startNode, endNode) * heuristicFactor).toFloat())
+
+        while (!mQueue.isEmpty()) {
+            val node = mQueue.poll()
+            if (mSearchStates[node] == settled) {
+                continue
+            }
+            mSearchStates[node] = settled
+            settledNodeCount++
+
+            if (node == endNode) {
+                return createPath(startNode, endNode)
+            }
+
+            val duration = mDurations[node]
+            for (edge in graph.getFirstEdge(node) until graph.getFirstEdge(node + 1)) {
+                val target = graph.getEdgeTarget(edge)
+                val state = mSearchStates[target]
+                if (state == settled) {
+                    continue
+                }
+
+                val targetDuration = duration + graph.getEdgeDuration(edge)
+                if (state != reached || targetDuration < mDurations[target]) {
+                    mSearchStates[target] = reached
+                    mDurations[target] = targetDuration
+                    mParentEdges[target] = edge
+                    mParentNodes[target] = node
+                    val estimate = graph.getDistance(target, endNode) * heuristicFactor
+                    mQueue.add(target, (targetDuration + estimate).toFloat())
+                }
+            }
+        }
+
+        return null
+    }
+
+    private fun startSearch() {
+        mQueue.clear()
+        settledNodeCount = 0
+
+        mSearchId++
+        // search id must fit in 30 bits, clear old states when it wraps around
+        if (mSearchId >= 1 shl 30) {
+            mSearchStates.fill(0)
+            mSearchId = 1
+        }
+    }
+
+    private fun createPath(startNode: Int, endNode: Int): Path {
+        var edgeCount = 0
+        var node = endNode
+        while (node != startNode) {
+            edgeCount++
+            node = mParentNodes[node]
+        }
+
+        val nodes = IntArray(edgeCount + 1)
+        val edges = IntArray(edgeCount)
+        var length = 0.0
+
+        node = endNode
+        for (index in edgeCount downTo 1) {
+            nodes[index] = node
+            edges[index - 1] = mParentEdges[node]
+            length += graph.getEdgeLength(mParentEdges[node])
+            node = mParentNodes[node]
+        }
+        nodes[0] = startNode
+
+        return Path(nodes, edges, mDurations[endNode].toDouble(), length)
+    }
+
+}
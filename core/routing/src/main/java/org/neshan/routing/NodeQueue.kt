@@ -0,0 +1,75 @@
+package org.neshan.routing
+
+/**
+ * binary min heap of nodes by priority, stored in primitive arrays. a node may be added more than
+ * once, searches skip already settled nodes instead of updating their priority
+ * */
+internal class NodeQueue(initialCapacity: Int = 1024) {
+
+    private var mNodes = IntArray(initialCapacity)
+
+    private var mPriorities = FloatArray(initialCapacity)
+
+    var size = 0
+        private set
+
+    fun isEmpty() = size == 0
+
+    fun clear() {
+        size = 0
+    }
+
+    fun add(node: Int, priority: Float) {
+        if (size == mNodes.size) {
+            mNodes = mNodes.copyOf(size * 2)
+            mPriorities = mPriorities.copyOf(size * 2)
+        }
+
+        // sift up
+        var index = size++
+        while (index > 0) {
+            val parent = (index - 1) ushr 1
+            if (mPriorities[parent] <= priority) {
+                break
+            }
+            mNodes[index] = mNodes[parent]
+            mPriorities[index] = mPriorities[parent]
+            index = parent
+        }
+        mNodes[index] = node
+        mPriorities[index] = priority
+    }
+
+    /**
+     * removes and returns node with lowest priority
+     * */
+    fun poll(): Int {
+        val result = mNodes[0]
+
+        val node = mNodes[--size]
+        val priority = mPriorities[size]
+
+        // sift down
+        var index = 0
+        while (true) {
+            var child = index * 2 + 1
+            if (child >= size) {
+                break
+            }
+            if (child + 1 < size && mPriorities[child + 1] < mPriorities[child]) {
+                child++
+            }
+            if (priority <= mPriorities[child]) {
+                break
+            }
+            mNodes[index] = mNodes[child]
+            mPriorities[index] = mPriorities[child]
+            index = child
+        }
+        mNodes[index] = node
+        mPriorities[index] = priority
+
+        return result
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.neshan.routing
+
+import org.neshan.data.model.response.*
+import org.neshan.data.util.PolylineEncoder
+import kotlin.math.atan2
+import kotlin.math.cos
+import kotlin.math.roundToInt
+
+/**
+ * converts path found on road graph to the same response model as api service, consecutive
+ * edges of the same street are merged into one step
+ * */
+internal object OfflineRouteBuilder {
+
+    fun build(graph: RoadGraph, path: AStarRouter.Path, textFormat: RouteTextFormat): RoutingResponse {
+        val steps = ArrayList<Step>()
+
+        var firstEdge = 0
+        while (firstEdge < path.edges.size) {
+            val streetName = graph.getEdgeStreetName(path.edges[firstEdge])
+
+            var lastEdge = firstEdge
+            while (lastEdge + 1 < path.edges.size && graph.getEdgeStreetName(path.edges[lastEdge + 1]) == streetName) {
+                lastEdge++
+            }
+
+            steps.add(createStep(graph, path, firstEdge, lastEdge, graph.getString(streetName), textFormat))
+            firstEdge = lastEdge + 1
+        }
+
+        val latitudes = DoubleArray(path.nodes.size) { index -> graph.getLatitude(path.nodes[index]) }
+        val longitudes = DoubleArray(path.nodes.size) { index -> graph.getLongitude(path.nodes[index]) }
+
+        val length = path.lengthInMeters.roundToInt()
+        val duration = path.durationInSeconds.roundToInt()
+        val leg = Leg(
+            steps.firstOrNull()?.name ?: "",
+            Distance(length, textFormat.formatDistance(length)),
+            Duration(duration, textFormat.formatDuration(duration)),
+            steps
+        )
+
+        val route = Route(OverviewPolyline(PolylineEncoder.encode(latitudes, longitudes)), arrayListOf(leg))
+
+        return RoutingResponse.success(arrayListOf(route))
+    }
+
+    private fun createStep(
+        graph: RoadGraph,
+        path: AStarRouter.Path,
+        firstEdge: Int,
+        lastEdge: Int,
+        name: String,
+        textFormat: RouteTextFormat
+    ): Step {
+        // step starts at source of first edge and ends at target of last edge
+        val latitudes = DoubleArray(lastEdge - firstEdge + 2)
+        val longitudes = DoubleArray(lastEdge - firstEdge + 2)
+        var length = 0.0
+        var duration = 0.0
+        for (index in firstEdge..lastEdge + 1) {
+            val node = path.nodes[index]
+            latitudes[index - firstEdge] = graph.getLatitude(node)
+            longitudes[index - firstEdge] = graph.getLongitude(node)
+            if (index <= lastEdge) {
+                length += graph.getEdgeLength(path.edges[index])
+                duration += graph.getEdgeDuration(path.edges[index])
+            }
+        }
+
+        val stepLength = length.roundToInt()
+        val stepDuration = duration.roundToInt()
+        return Step(
+            name,
+            "",
+            Distance(stepLength, textFormat.formatDistance(stepLength)),
+            Duration(stepDuration, textFormat.formatDuration(stepDuration)),
+            getBearing(latitudes[0], longitudes[0], latitudes[1], longitudes[1]),
+            PolylineEncoder.encode(latitudes, longitudes)
+        )
+    }
+
+    private fun getBearing(latitude1: Double, longitude1: Double, latitude2: Double, longitude2: Double): Int {
+        val x = (longitude2 - longitude1) * cos(Math.toRadians((latitude1 + latitude2) / 2))
+        val y = latitude2 - latitude1
+        val bearing = Math.toDegrees(atan2(x, y)).roundToInt()
+        return (bearing + 360) % 360
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.neshan.routing
+
+import android.content.Context
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.neshan.data.AppConfig
+import org.neshan.data.model.response.RoutingResponse
+import java.io.File
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * finds routes on on-device road graph, used when api service is not reachable. graph is
+ * opened on first request after it is installed, so a graph downloaded while app is running
+ * is used without restart
+ * */
+@Singleton
+class OfflineRouter(
+    private val graphFile: File,
+    private val maxSnapDistanceInMeters: Double,
+    private val textFormat: RouteTextFormat
+) {
+
+    companion object {
+        private const val TAG = "OfflineRouter"
+        private const val NOT_FAILED = -1L
+    }
+
+    @Inject
+    constructor(@ApplicationContext context: Context) : this(
+        File(context.filesDir, AppConfig.OFFLINE_ROUTING_GRAPH),
+        AppConfig.OFFLINE_ROUTING_MAX_SNAP_DISTANCE_IN_METERS,
+        RouteTextFormat(context)
+    )
+
+    private var mGraph: RoadGraph? = null
+
+    private var mRouter: AStarRouter? = null
+
+    // modification time of graph file which failed to open, it is not opened again until replaced
+    private var mFailedGraphModified = NOT_FAILED
+
+    /**
+     * checks road graph is available for routing
+     * */
+    @Synchronized
+    fun isAvailable(): Boolean {
+        open()
+        return mGraph != null
+    }
+
+    /**
+     * finds fastest route between points, null if graph is not available, points are too far
+     * from roads or they are not connected
+     * note: search may take tens of milliseconds on large graphs, do not call from main thread
+     * */
+    @Synchronized
+    fun getDirection(
+        startLatitude: Double,
+        startLongitude: Double,
+        endLatitude: Double,
+        endLongitude: Double
+    ): RoutingResponse? {
+        open()
+        val graph = mGraph ?: return null
+        val router = mRouter ?: return null
+
+        val startNode = graph.findNearestNode(startLatitude, startLongitude, maxSnapDistanceInMeters)
+        val endNode = graph.findNearestNode(endLatitude, endLongitude, maxSnapDistanceInMeters)
+        if (startNode < 0 || endNode < 0) {
+            return null
+        }
+
+        val path = router.findPath(startNode, endNode) ?: return null
+        return OfflineRouteBuilder.build(graph, path, textFormat)
+    }
+
+    private fun open() {
+        if (mGraph == null && graphFile.exists() && graphFile.lastModified() != mFailedGraphModified) {
+            try {
+                val graph = RoadGraph.open(graphFile)
+                mGraph = graph
+                mRouter = AStarRouter(graph)
+            } catch (e: IOException) {
+                mFailedGraphModified = graphFile.lastModified()
+                Log.e(TAG, "failed to open offline road graph", e)
+            }
+        }
+    }
+
+}
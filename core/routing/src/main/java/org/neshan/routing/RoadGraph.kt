@@ -0,0 +1,186 @@
+package org.neshan.routing
+
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import kotlin.math.ceil
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.sqrt
+
+/**
+ * read-only directed road graph in compressed sparse row format. the file is memory mapped,
+ * so graph data does not use java heap and only pages touched by searches are loaded
+ *
+ * file layout (little endian):
+ * - header: magic, version, node count, edge count, string count, grid rows, grid columns,
+ *   max speed (m/s), min latitude, min longitude, cell size (degrees)
+ * - nodes: latitude, longitude (float)
+ * - edge offsets: first edge of each node (node count + 1 ints)
+ * - edges: target node, length (meters), duration (seconds), street name (string index)
+ * - cell offsets: start of each cell in cell entries (rows * columns + 1 ints)
+ * - cell entries: nodes inside each cell
+ * - string offsets (string count + 1 ints) and utf-8 string bytes
+ * */
+class RoadGraph(private val mBuffer: ByteBuffer) {
+
+    companion object {
+        const val MAGIC = 0x4E524731 // NRG1
+        const val VERSION = 1
+
+        const val HEADER_SIZE = 64
+        const val NODE_SIZE = 8
+        const val EDGE_SIZE = 16
+
+        const val METERS_PER_DEGREE = 111_320.0
+
+        /**
+         * memory maps graph file
+         * @throws IOException if file can not be read or is not a valid graph
+         * */
+        @Throws(IOException::class)
+        fun open(file: File): RoadGraph {
+            RandomAccessFile(file, "r").use { randomAccessFile ->
+                val channel = randomAccessFile.channel
+                return RoadGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+            }
+        }
+    }
+
+    val nodeCount: Int
+
+    val edgeCount: Int
+
+    /**
+     * maximum speed of all edges in meters per second, used by search heuristic
+     * */
+    val maxSpeed: Float
+
+    private val mStringCount: Int
+    private val mGridRows: Int
+    private val mGridColumns: Int
+    private val mMinLatitude: Double
+    private val mMinLongitude: Double
+    private val mCellSize: Double
+
+    private val mNodesOffset: Int
+    private val mEdgeOffsetsOffset: Int
+    private val mEdgesOffset: Int
+    private val mCellOffsetsOffset: Int
+    private val mCellEntriesOffset: Int
+    private val mStringOffsetsOffset: Int
+    private val mStringBytesOffset: Int
+
+    init {
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN)
+
+        if (mBuffer.capacity() < HEADER_SIZE || mBuffer.getInt(0) != MAGIC) {
+            throw IOException("invalid road graph")
+        }
+        if (mBuffer.getInt(4) != VERSION) {
+            throw IOException("unsupported road graph version ${mBuffer.getInt(4)}")
+        }
+
+        nodeCount = mBuffer.getInt(8)
+        edgeCount = mBuffer.getInt(12)
+        mStringCount = mBuffer.getInt(16)
+        mGridRows = mBuffer.getInt(20)
+        mGridColumns = mBuffer.getInt(24)
+        maxSpeed = mBuffer.getFloat(28)
+        mMinLatitude = mBuffer.getDouble(32)
+        mMinLongitude = mBuffer.getDouble(40)
+        mCellSize = mBuffer.getDouble(48)
+
+        mNodesOffset = HEADER_SIZE
+        mEdgeOffsetsOffset = mNodesOffset + nodeCount * NODE_SIZE
+        mEdgesOffset = mEdgeOffsetsOffset + (nodeCount + 1) * 4
+        mCellOffsetsOffset = mEdgesOffset + edgeCount * EDGE_SIZE
+        mCellEntriesOffset = mCellOffsetsOffset + (mGridRows * mGridColumns + 1) * 4
+        mStringOffsetsOffset = mCellEntriesOffset + getCellOffset(mGridRows * mGridColumns) * 4
+        mStringBytesOffset = mStringOffsetsOffset + (mStringCount + 1) * 4
+
+        if (mStringBytesOffset + getStringOffset(mStringCount) > mBuffer.capacity()) {
+            throw IOException("truncated road graph")
+        }
+    }
+
+    fun getLatitude(node: Int): Double = mBuffer.getFloat(mNodesOffset + node * NODE_SIZE).toDouble()
+
+    fun getLongitude(node: Int): Double = mBuffer.getFloat(mNodesOffset + node * NODE_SIZE + 4).toDouble()
+
+    /**
+     * first outgoing edge of node, outgoing edges of node are [getFirstEdge] (node) until [getFirstEdge] (node + 1)
+     * */
+    fun getFirstEdge(node: Int): Int = mBuffer.getInt(mEdgeOffsetsOffset + node * 4)
+
+    fun getEdgeTarget(edge: Int): Int = mBuffer.getInt(mEdgesOffset + edge * EDGE_SIZE)
+
+    fun getEdgeLength(edge: Int): Float = mBuffer.getFloat(mEdgesOffset + edge * EDGE_SIZE + 4)
+
+    fun getEdgeDuration(edge: Int): Float = mBuffer.getFloat(mEdgesOffset + edge * EDGE_SIZE + 8)
+
+    fun getEdgeStreetName(edge: Int): Int = mBuffer.getInt(mEdgesOffset + edge * EDGE_SIZE + 12)
+
+    fun getString(index: Int): String {
+        val start = getStringOffset(index)
+        val bytes = ByteArray(getStringOffset(index + 1) - start)
+        for (i in bytes.indices) {
+            bytes[i] = mBuffer.get(mStringBytesOffset + start + i)
+        }
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    /**
+     * finds node nearest to location
+     * @return index of node or -1 if there is no node within [maxDistanceInMeters]
+     * */
+    fun findNearestNode(latitude: Double, longitude: Double, maxDistanceInMeters: Double): Int {
+        val longitudeScale = cos(Math.toRadians(latitude))
+        val maxDistance = maxDistanceInMeters / METERS_PER_DEGREE
+
+        val rowRadius = ceil(maxDistance / mCellSize).toInt()
+        val columnRadius = ceil(maxDistance / longitudeScale.coerceAtLeast(0.01) / mCellSize).toInt()
+        val row = floor((latitude - mMinLatitude) / mCellSize).toInt()
+        val column = floor((longitude - mMinLongitude) / mCellSize).toInt()
+
+        var nearestNode = -1
+        var nearestDistance = maxDistance * maxDistance
+
+        for (cellRow in maxOf(row - rowRadius, 0)..minOf(row + rowRadius, mGridRows - 1)) {
+            for (cellColumn in maxOf(column - columnRadius, 0)..minOf(column + columnRadius, mGridColumns - 1)) {
+                val cell = cellRow * mGridColumns + cellColumn
+                for (entry in getCellOffset(cell) until getCellOffset(cell + 1)) {
+                    val node = mBuffer.getInt(mCellEntriesOffset + entry * 4)
+                    val x = (getLongitude(node) - longitude) * longitudeScale
+                    val y = getLatitude(node) - latitude
+                    val distance = x * x + y * y
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance
+                        nearestNode = node
+                    }
+                }
+            }
+        }
+
+        return nearestNode
+    }
+
+    /**
+     * straight line distance between nodes in meters (equirectangular approximation)
+     * */
+    fun getDistance(node1: Int, node2: Int): Double {
+        val latitude1 = getLatitude(node1)
+        val latitude2 = getLatitude(node2)
+        val x = (getLongitude(node2) - getLongitude(node1)) * cos(Math.toRadians((latitude1 + latitude2) / 2))
+        val y = latitude2 - latitude1
+        return sqrt(x * x + y * y) * METERS_PER_DEGREE
+    }
+
+    private fun getCellOffset(cell: Int): Int = mBuffer.getInt(mCellOffsetsOffset + cell * 4)
+
+    private fun getStringOffset(index: Int): Int = mBuffer.getInt(mStringOffsetsOffset + index * 4)
+
+}
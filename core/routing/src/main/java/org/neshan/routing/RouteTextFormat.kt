@@ -0,0 +1,38 @@
+package org.neshan.routing
+
+import android.content.Context
+import java.util.*
+
+/**
+ * formats distance and duration texts of offline routes like texts of api service routes.
+ * formats are read from resources once, so routes are built without android context.
+ * numbers are written with latin digits like api service texts
+ * */
+class RouteTextFormat(
+    private val metersFormat: String,
+    private val kilometersFormat: String,
+    private val minutesFormat: String
+) {
+
+    constructor(context: Context) : this(
+        context.getString(R.string.offline_route_distance_in_meters),
+        context.getString(R.string.offline_route_distance_in_kilometers),
+        context.getString(R.string.offline_route_duration_in_minutes)
+    )
+
+    fun formatDistance(meters: Int): String {
+        return if (meters < 1000) {
+            String.format(Locale.US, metersFormat, meters)
+        } else {
+            String.format(Locale.US, kilometersFormat, meters / 1000f)
+        }
+    }
+
+    /**
+     * duration is rounded up to minutes, at least one minute
+     * */
+    fun formatDuration(seconds: Int): String {
+        return String.format(Locale.US, minutesFormat, maxOf((seconds + 59) / 60, 1))
+    }
+
+}
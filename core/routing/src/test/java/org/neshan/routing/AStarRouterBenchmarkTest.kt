@@ -0,0 +1,51 @@
+package org.neshan.routing
+
+import org.junit.Assert.assertNotNull
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import java.util.*
+
+/**
+ * rough timing of route queries on a city sized synthetic graph, results are printed to
+ * test output and are not asserted as they depend on machine. skipped unless RUN_BENCHMARKS
+ * environment variable is set
+ * */
+class AStarRouterBenchmarkTest {
+
+    @Test
+    fun findPath_cityGraph() {
+
+        assumeTrue(System.getenv("RUN_BENCHMARKS") != null)
+
+        val random = Random(7)
+        // about 30 km x 30 km grid with 90000 intersections
+        val graph = RoadGraphWriter.createGrid(300, 300, 0.001, random)
+        val router = AStarRouter(graph)
+
+        // warm up
+        repeat(20) {
+            router.findPath(random.nextInt(graph.nodeCount), random.nextInt(graph.nodeCount))
+        }
+
+        val queryCount = 100
+        var settledNodeCount = 0L
+        val startTime = System.nanoTime()
+        repeat(queryCount) {
+            val path = router.findPath(random.nextInt(graph.nodeCount), random.nextInt(graph.nodeCount))
+            assertNotNull(path)
+            settledNodeCount += router.settledNodeCount
+        }
+        val elapsedTime = System.nanoTime() - startTime
+
+        println(
+            String.format(
+                Locale.US,
+                "nodes: %d, edges: %d, average query: %.2f ms, average settled nodes: %d",
+                graph.nodeCount, graph.edgeCount,
+                elapsedTime / 1E6 / queryCount, settledNodeCount / queryCount
+            )
+        )
+
+    }
+
+}
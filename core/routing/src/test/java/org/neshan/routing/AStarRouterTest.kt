@@ -0,0 +1,110 @@
+package org.neshan.routing
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class AStarRouterTest {
+
+    /**
+     * reference shortest travel times with plain dijkstra search
+     * */
+    private fun findDurationsWithDijkstra(graph: RoadGraph, startNode: Int): DoubleArray {
+        val durations = DoubleArray(graph.nodeCount) { Double.MAX_VALUE }
+        val queue = PriorityQueue<Pair<Double, Int>>(compareBy { entry -> entry.first })
+        durations[startNode] = 0.0
+        queue.add(Pair(0.0, startNode))
+        while (queue.isNotEmpty()) {
+            val (duration, node) = queue.poll()!!
+            if (duration > durations[node]) {
+                continue
+            }
+            for (edge in graph.getFirstEdge(node) until graph.getFirstEdge(node + 1)) {
+                val target = graph.getEdgeTarget(edge)
+                val targetDuration = duration + graph.getEdgeDuration(edge)
+                if (targetDuration < durations[target]) {
+                    durations[target] = targetDuration
+                    queue.add(Pair(targetDuration, target))
+                }
+            }
+        }
+        return durations
+    }
+
+    @Test
+    fun findPath_matchesDijkstraOnRandomPairs() {
+
+        val random = Random(42)
+        val graph = RoadGraphWriter.createGrid(40, 40, 0.001, random)
+        val router = AStarRouter(graph)
+
+        repeat(50) {
+            val startNode = random.nextInt(graph.nodeCount)
+            val endNode = random.nextInt(graph.nodeCount)
+
+            val path = router.findPath(startNode, endNode)!!
+            val expected = findDurationsWithDijkstra(graph, startNode)[endNode]
+            assertEquals(expected, path.durationInSeconds, expected * 1E-4 + 1E-3)
+
+            // path must be connected through its edges
+            assertEquals(startNode, path.nodes.first())
+            assertEquals(endNode, path.nodes.last())
+            assertEquals(path.nodes.size - 1, path.edges.size)
+            path.edges.forEachIndexed { index, edge ->
+                assertEquals(path.nodes[index + 1], graph.getEdgeTarget(edge))
+                assertTrue(edge >= graph.getFirstEdge(path.nodes[index]))
+                assertTrue(edge < graph.getFirstEdge(path.nodes[index] + 1))
+            }
+        }
+
+    }
+
+    @Test
+    fun findPath_disconnectedNodes_returnsNull() {
+
+        val writer = RoadGraphWriter(cellSize = 0.01)
+        val node1 = writer.addNode(35.70, 51.30)
+        val node2 = writer.addNode(35.70, 51.31)
+        val node3 = writer.addNode(35.71, 51.31)
+        // one way street from node2 to node3
+        writer.addRoad(node1, node2, 10f, "Azadi")
+        writer.addEdge(node2, node3, 10f, "Navab")
+        val router = AStarRouter(RoadGraph(writer.build()))
+
+        assertNotNull(router.findPath(node1, node3))
+        assertNull(router.findPath(node3, node1))
+        // router state of previous searches must not leak into next ones
+        assertNotNull(router.findPath(node1, node3))
+
+    }
+
+    @Test
+    fun build_mergesEdgesOfSameStreetIntoSteps() {
+
+        val writer = RoadGraphWriter(cellSize = 0.01)
+        val node1 = writer.addNode(35.700, 51.300)
+        val node2 = writer.addNode(35.700, 51.302)
+        val node3 = writer.addNode(35.700, 51.304)
+        val node4 = writer.addNode(35.703, 51.304)
+        writer.addRoad(node1, node2, 10f, "Azadi")
+        writer.addRoad(node2, node3, 10f, "Azadi")
+        writer.addRoad(node3, node4, 10f, "Navab")
+        val graph = RoadGraph(writer.build())
+
+        val path = AStarRouter(graph).findPath(node1, node4)!!
+        val response = OfflineRouteBuilder.build(graph, path, RouteTextFormat("%d m", "%.1f km", "%d min"))
+
+        assertTrue(response.isSuccessFull())
+        val leg = response.routes!![0].legs[0]
+        assertEquals(listOf("Azadi", "Navab"), leg.steps.map { step -> step.name })
+        assertEquals(6, leg.steps[0].points.size)
+        assertEquals(4, leg.steps[1].points.size)
+        assertEquals(90, leg.steps[0].bearingAfter)
+        assertEquals(0, leg.steps[1].bearingAfter)
+        assertEquals(path.lengthInMeters.toInt().toDouble(), leg.distance.value.toDouble(), 1.0)
+        assertEquals("${leg.distance.value} m", leg.distance.text)
+        assertEquals("1 min", leg.steps[1].duration.text)
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.neshan.routing
+
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+class OfflineRouterTest {
+
+    @Test
+    fun getDirection_graphInstalledAfterFirstRequest_isUsed() {
+
+        val directory = Files.createTempDirectory("offline_router").toFile()
+        try {
+            val graphFile = File(directory, "road_graph.bin")
+            val router = OfflineRouter(graphFile, 300.0, RouteTextFormat("%d m", "%.1f km", "%d min"))
+
+            assertFalse(router.isAvailable())
+            assertNull(router.getDirection(35.7000, 51.3000, 35.7000, 51.3020))
+
+            // graph is downloaded while app is running
+            val writer = RoadGraphWriter(cellSize = 0.004)
+            val node1 = writer.addNode(35.7000, 51.3000)
+            val node2 = writer.addNode(35.7000, 51.3010)
+            val node3 = writer.addNode(35.7000, 51.3020)
+            val buffer = writer
+                .addRoad(node1, node2, 10f, "Azadi")
+                .addRoad(node2, node3, 10f, "Azadi")
+                .build()
+            graphFile.writeBytes(ByteArray(buffer.remaining()).also { bytes -> buffer.get(bytes) })
+
+            assertTrue(router.isAvailable())
+            assertNotNull(router.getDirection(35.7000, 51.3000, 35.7000, 51.3020))
+        } finally {
+            directory.deleteRecursively()
+        }
+
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.neshan.routing
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.*
+import kotlin.math.floor
+
+/**
+ * builds road graphs in [RoadGraph] format for tests
+ * */
+class RoadGraphWriter(private val cellSize: Double) {
+
+    companion object {
+
+        /**
+         * grid of streets around Tehran, every road gets a random speed between 8 and 25 m/s
+         * */
+        fun createGrid(rows: Int, columns: Int, spacingInDegrees: Double, random: Random): RoadGraph {
+            val writer = RoadGraphWriter(cellSize = spacingInDegrees * 4)
+            for (row in 0 until rows) {
+                for (column in 0 until columns) {
+                    writer.addNode(35.6 + row * spacingInDegrees, 51.2 + column * spacingInDegrees)
+                }
+            }
+            for (row in 0 until rows) {
+                for (column in 0 until columns) {
+                    val node = row * columns + column
+                    if (column + 1 < columns) {
+                        writer.addRoad(node, node + 1, 8f + random.nextFloat() * 17f, "street $row")
+                    }
+                    if (row + 1 < rows) {
+                        writer.addRoad(node, node + columns, 8f + random.nextFloat() * 17f, "avenue $column")
+                    }
+                }
+            }
+            return RoadGraph(writer.build())
+        }
+
+    }
+
+    private class Edge(
+        val source: Int, val target: Int,
+        val length: Float, val duration: Float,
+        val streetName: Int
+    )
+
+    private val mLatitudes = ArrayList<Float>()
+
+    private val mLongitudes = ArrayList<Float>()
+
+    private val mEdges = ArrayList<Edge>()
+
+    private val mStrings = LinkedHashMap<String, Int>()
+
+    private var mMaxSpeed = 0f
+
+    fun addNode(latitude: Double, longitude: Double): Int {
+        mLatitudes.add(latitude.toFloat())
+        mLongitudes.add(longitude.toFloat())
+        return mLatitudes.size - 1
+    }
+
+    /**
+     * adds edges in both directions, length is straight line distance between nodes
+     * */
+    fun addRoad(node1: Int, node2: Int, speedInMetersPerSecond: Float, streetName: String): RoadGraphWriter {
+        addEdge(node1, node2, speedInMetersPerSecond, streetName)
+        addEdge(node2, node1, speedInMetersPerSecond, streetName)
+        return this
+    }
+
+    fun addEdge(source: Int, target: Int, speedInMetersPerSecond: Float, streetName: String): RoadGraphWriter {
+        val latitude1 = mLatitudes[source].toDouble()
+        val latitude2 = mLatitudes[target].toDouble()
+        val x = (mLongitudes[target] - mLongitudes[source]) * Math.cos(Math.toRadians((latitude1 + latitude2) / 2))
+        val y = latitude2 - latitude1
+        val length = (Math.sqrt(x * x + y * y) * RoadGraph.METERS_PER_DEGREE).toFloat()
+
+        mEdges.add(Edge(source, target, length, length / speedInMetersPerSecond, getStringIndex(streetName)))
+        mMaxSpeed = maxOf(mMaxSpeed, speedInMetersPerSecond)
+        return this
+    }
+
+    fun build(): ByteBuffer {
+        val nodeCount = mLatitudes.size
+        val minLatitude = mLatitudes.minOrNull()!!.toDouble()
+        val minLongitude = mLongitudes.minOrNull()!!.toDouble()
+        val rows = floor((mLatitudes.maxOrNull()!! - minLatitude) / cellSize).toInt() + 1
+        val columns = floor((mLongitudes.maxOrNull()!! - minLongitude) / cellSize).toInt() + 1
+
+        val edges = mEdges.sortedBy { edge -> edge.source }
+
+        val cells = Array(rows * columns) { ArrayList<Int>() }
+        for (node in 0 until nodeCount) {
+            val row = floor((mLatitudes[node] - minLatitude) / cellSize).toInt()
+            val column = floor((mLongitudes[node] - minLongitude) / cellSize).toInt()
+            cells[row * columns + column].add(node)
+        }
+
+        val strings = mStrings.keys.map { string -> string.toByteArray(Charsets.UTF_8) }
+
+        val size = RoadGraph.HEADER_SIZE +
+                nodeCount * RoadGraph.NODE_SIZE +
+                (nodeCount + 1) * 4 +
+                edges.size * RoadGraph.EDGE_SIZE +
+                (cells.size + 1) * 4 + nodeCount * 4 +
+                (strings.size + 1) * 4 + strings.sumOf { bytes -> bytes.size }
+
+        val buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putInt(RoadGraph.MAGIC)
+        buffer.putInt(RoadGraph.VERSION)
+        buffer.putInt(nodeCount)
+        buffer.putInt(edges.size)
+        buffer.putInt(strings.size)
+        buffer.putInt(rows)
+        buffer.putInt(columns)
+        buffer.putFloat(mMaxSpeed)
+        buffer.putDouble(minLatitude)
+        buffer.putDouble(minLongitude)
+        buffer.putDouble(cellSize)
+        buffer.position(RoadGraph.HEADER_SIZE)
+
+        for (node in 0 until nodeCount) {
+            buffer.putFloat(mLatitudes[node])
+            buffer.putFloat(mLongitudes[node])
+        }
+
+        var edgeIndex = 0
+        for (node in 0..nodeCount) {
+            while (edgeIndex < edges.size && edges[edgeIndex].source < node) {
+                edgeIndex++
+            }
+            buffer.putInt(edgeIndex)
+        }
+        edges.forEach { edge ->
+            buffer.putInt(edge.target)
+            buffer.putFloat(edge.length)
+            buffer.putFloat(edge.duration)
+            buffer.putInt(edge.streetName)
+        }
+
+        var cellOffset = 0
+        cells.forEach { cell ->
+            buffer.putInt(cellOffset)
+            cellOffset += cell.size
+        }
+        buffer.putInt(cellOffset)
+        cells.forEach { cell -> cell.forEach { node -> buffer.putInt(node) } }
+
+        var stringOffset = 0
+        strings.forEach { bytes ->
+            buffer.putInt(stringOffset)
+            stringOffset += bytes.size
+        }
+        buffer.putInt(stringOffset)
+        strings.forEach { bytes -> buffer.put(bytes) }
+
+        buffer.flip()
+        return buffer
+    }
+
+    private fun getStringIndex(string: String): Int {
+        return mStrings.getOrPut(string) { mStrings.size }
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.neshan.routing
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class RouteTextFormatTest {
+
+    private val mTextFormat = RouteTextFormat("%d m", "%.1f km", "%d min")
+
+    @Test
+    fun formatDistance_switchesToKilometers() {
+
+        assertEquals("999 m", mTextFormat.formatDistance(999))
+        assertEquals("1.0 km", mTextFormat.formatDistance(1000))
+        assertEquals("12.3 km", mTextFormat.formatDistance(12_345))
+
+    }
+
+    @Test
+    fun formatDuration_roundsUpToMinutes() {
+
+        assertEquals("1 min", mTextFormat.formatDuration(0))
+        assertEquals("1 min", mTextFormat.formatDuration(60))
+        assertEquals("2 min", mTextFormat.formatDuration(61))
+
+    }
+
+}
@@ -9,19 +9,23 @@ import android.provider.Settings
 import android.util.Log
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.ContextCompat
+import androidx.lifecycle.ViewModelProvider
 import com.carto.styles.MarkerStyleBuilder
 import com.carto.utils.BitmapUtils
 import com.google.android.gms.location.LocationRequest
 import com.google.android.material.snackbar.Snackbar
+import dagger.hilt.android.AndroidEntryPoint
 import org.neshan.choose_location.databinding.ActivityChooseLocationBinding
 import org.neshan.common.model.LatLng
 import org.neshan.component.location.BoundLocationManager
 import org.neshan.component.location.BoundLocationManager.Companion.REQUEST_CODE_FOREGROUND_PERMISSIONS
 import org.neshan.component.location.LocationListener
 import org.neshan.component.util.toBitmap
+import org.neshan.data.network.Result
 import org.neshan.mapsdk.model.Marker
 import java.util.concurrent.TimeUnit
 
+@AndroidEntryPoint
 class ChooseLocationActivity : AppCompatActivity(), LocationListener {
 
     companion object {
@@ -33,6 +37,8 @@ class ChooseLocationActivity : AppCompatActivity(), LocationListener {
 
     private lateinit var mBinding: ActivityChooseLocationBinding
 
+    private lateinit var mViewModel: ChooseLocationViewModel
+
     // handle location updates
     private var mLocationManager: BoundLocationManager? = null
 
@@ -47,8 +53,12 @@ class ChooseLocationActivity : AppCompatActivity(), LocationListener {
         mBinding = ActivityChooseLocationBinding.inflate(layoutInflater)
         setContentView(mBinding.root)
 
+        mViewModel = ViewModelProvider(this)[ChooseLocationViewModel::class.java]
+
         setViewListeners()
 
+        setUpObservers()
+
         setUpLocationManager()
     }
 
@@ -137,6 +147,29 @@ class ChooseLocationActivity : AppCompatActivity(), LocationListener {
             chooseSelectedPosition()
         }
 
+        mBinding.mapview.setOnCameraMoveListener {
+            mViewModel.onCameraTargetChange(mBinding.mapview.cameraTargetPosition)
+        }
+
+    }
+
+    private fun setUpObservers() {
+
+        mViewModel.address.observe(this) { result ->
+            when (result.status) {
+                Result.Status.LOADING -> mBinding.address.setText(R.string.loading_address)
+                Result.Status.SUCCESS -> {
+                    val address = result.data?.address
+                    if (result.data?.isSuccessFull() == true && !address.isNullOrEmpty()) {
+                        mBinding.address.text = address
+                    } else {
+                        mBinding.address.setText(R.string.address_not_found)
+                    }
+                }
+                Result.Status.ERROR -> mBinding.address.setText(R.string.address_not_found)
+            }
+        }
+
     }
 
     private fun setUpLocationManager() {
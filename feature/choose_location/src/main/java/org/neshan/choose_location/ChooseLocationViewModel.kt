@@ -0,0 +1,76 @@
+package org.neshan.choose_location
+
+import android.app.Application
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import dagger.hilt.android.lifecycle.HiltViewModel
+import io.reactivex.rxjava3.disposables.CompositeDisposable
+import io.reactivex.rxjava3.subjects.PublishSubject
+import org.neshan.common.model.LatLng
+import org.neshan.component.util.equalsTo
+import org.neshan.data.model.response.AddressDetailResponse
+import org.neshan.data.network.Result
+import org.neshan.data.repository.AddressRepository
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+@HiltViewModel
+class ChooseLocationViewModel @Inject constructor(
+    application: Application,
+    private val mAddressRepository: AddressRepository
+) : AndroidViewModel(application) {
+
+    companion object {
+        // waits for camera to settle before loading address
+        private const val ADDRESS_DEBOUNCE_IN_MILLIS = 300L
+    }
+
+    private val mCompositeDisposable by lazy { CompositeDisposable() }
+
+    // camera target positions, map calls camera listeners on its render thread
+    private val mCameraTargets = PublishSubject.create<LatLng>().toSerialized()
+
+    // address of location under the pin
+    private val _address = MutableLiveData<Result<AddressDetailResponse>>()
+    val address: LiveData<Result<AddressDetailResponse>> by lazy { _address }
+
+    init {
+
+        // switchMap disposes previous address request as soon as camera target changes,
+        // so only the latest location is loaded
+        mCompositeDisposable.add(
+            mCameraTargets
+                .debounce(ADDRESS_DEBOUNCE_IN_MILLIS, TimeUnit.MILLISECONDS)
+                .distinctUntilChanged { previous, current -> previous.equalsTo(current) }
+                .switchMap { target ->
+                    mAddressRepository.getAddress(target.latitude, target.longitude)
+                        .map { response -> Result.success(response) }
+                        .onErrorReturn { error -> Result.error(error) }
+                        .toObservable()
+                        .startWithItem(Result.loading())
+                }
+                .subscribe { result -> _address.postValue(result) }
+        )
+
+    }
+
+    /**
+     * updates location under the pin, address is loaded when camera stops moving
+     * */
+    fun onCameraTargetChange(target: LatLng) {
+        mCameraTargets.onNext(target)
+    }
+
+    override fun onCleared() {
+
+        // disposes any incomplete request to avoid possible error also unnecessary network usage
+        if (!mCompositeDisposable.isDisposed) {
+            mCompositeDisposable.dispose()
+        }
+
+        super.onCleared()
+
+    }
+
+}
@@ -25,9 +25,10 @@ import org.neshan.common.model.LatLng
 import org.neshan.component.location.BoundLocationManager
 import org.neshan.component.location.BoundLocationManager.Companion.REQUEST_CODE_FOREGROUND_PERMISSIONS
 import org.neshan.component.location.LocationListener
-import org.neshan.component.util.angleWithNorthAxis
+import org.neshan.component.util.getPoint
 import org.neshan.component.util.showError
 import org.neshan.component.util.toBitmap
+import org.neshan.component.util.toPolyline
 import org.neshan.component.view.snackbar.SnackBar
 import org.neshan.data.model.error.GeneralError
 import org.neshan.data.model.error.SimpleError
@@ -62,6 +63,10 @@ class NavigationActivity : AppCompatActivity(), LocationListener {
     // poly line for showing progress path on map
     private var mProgressPathPolyLine: Polyline? = null
 
+    // shown progress and its drawn simplification level, path is redrawn when zoom level changes
+    private var mRouteProgress: RouteProgress? = null
+    private var mRouteProgressLevel = -1
+
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -150,6 +155,16 @@ class NavigationActivity : AppCompatActivity(), LocationListener {
             onBackPressed()
         }
 
+        // camera listener is not called on main thread
+        mBinding.mapview.setOnCameraMoveListener {
+            runOnUiThread {
+                val routeProgress = mRouteProgress
+                if (routeProgress != null && routeProgress.route.getLevel(mBinding.mapview.zoom) != mRouteProgressLevel) {
+                    drawPath(routeProgress)
+                }
+            }
+        }
+
     }
 
     private fun loadNavigationData() {
@@ -197,25 +212,19 @@ class NavigationActivity : AppCompatActivity(), LocationListener {
     /**
      * creates a PolyLine by routing points for showing path on map
      * */
-    private fun updatePathOnMap(routePoints: ArrayList<LatLng>) {
+    private fun updatePathOnMap(routeProgress: RouteProgress) {
 
-        if (routePoints.size >= 2) {
+        val routeGeometry = routeProgress.route.geometry.subGeometry(routeProgress.pointIndex)
+        if (routeGeometry.size >= 2) {
 
-            // create new poly line by routing points and update path on map
-            if (mProgressPathPolyLine != null) {
-                mBinding.mapview.removePolyline(mProgressPathPolyLine)
-            }
-            mProgressPathPolyLine =
-                Polyline(routePoints, getLineStyle(R.color.colorPrimaryDim75))
-            mBinding.mapview.addPolyline(mProgressPathPolyLine)
-
-            // calculate first route angle with north axis
-            // and set camera rotation to always show upward
-            val startPoint = routePoints[0]
-            val endPoint = routePoints[1]
-            val bearingEndPoint = routePoints.getOrNull(2) ?: endPoint
-            val angle = angleWithNorthAxis(startPoint, bearingEndPoint)
-            mBinding.mapview.setBearing((angle).toFloat(), 0.7f)
+            mRouteProgress = routeProgress
+            drawPath(routeProgress)
+
+            // set camera rotation to always show route upward, route bearing is looked up
+            // from route metrics and map bearing rotates counterclockwise
+            val startPoint = routeGeometry.getPoint(0)
+            val angle = (360 - routeProgress.metrics.getBearing(routeProgress.pointIndex)) % 360
+            mBinding.mapview.setBearing(angle, 0.7f)
 
             focusOnLocation(startPoint)
 
@@ -223,6 +232,23 @@ class NavigationActivity : AppCompatActivity(), LocationListener {
 
     }
 
+    /**
+     * creates new poly line by remained points simplified for current zoom and updates path on map
+     * */
+    private fun drawPath(routeProgress: RouteProgress) {
+
+        val zoom = mBinding.mapview.zoom
+        mRouteProgressLevel = routeProgress.route.getLevel(zoom)
+
+        if (mProgressPathPolyLine != null) {
+            mBinding.mapview.removePolyline(mProgressPathPolyLine)
+        }
+        mProgressPathPolyLine = routeProgress.route.getGeometry(zoom, routeProgress.pointIndex)
+            .toPolyline(getLineStyle(R.color.colorPrimaryDim75))
+        mBinding.mapview.addPolyline(mProgressPathPolyLine)
+
+    }
+
     private fun getLineStyle(colorResource: Int): LineStyle? {
 
         val lineStCr = LineStyleBuilder().apply {
@@ -1,9 +1,19 @@
 package org.neshan.navigation;
 
+import androidx.annotation.Nullable;
+
 import org.neshan.common.model.LatLng;
+import org.neshan.data.cache.RouteCache;
+import org.neshan.data.di.UncoalescedApiClient;
 import org.neshan.data.model.enums.RoutingType;
 import org.neshan.data.model.response.RoutingResponse;
 import org.neshan.data.network.ApiClient;
+import org.neshan.data.network.RequestHedger;
+import org.neshan.data.network.RequestPriority;
+import org.neshan.data.network.RequestScheduler;
+import org.neshan.data.network.RetryPolicy;
+import org.neshan.data.session.RouteSession;
+import org.neshan.routing.OfflineRouter;
 
 import javax.inject.Inject;
 
@@ -14,21 +24,129 @@ public class NavigationModel {
 
     private final ApiClient mApiClient;
 
+    // sends every call to server, used for hedged requests
+    private final ApiClient mUncoalescedApiClient;
+
+    private final RequestHedger mRequestHedger;
+
+    private final RequestScheduler mRequestScheduler;
+
+    private final RouteCache mRouteCache;
+
+    private final RouteSession mRouteSession;
+
+    private final OfflineRouter mOfflineRouter;
+
     @Inject
-    public NavigationModel(ApiClient apiClient) {
+    public NavigationModel(
+            ApiClient apiClient,
+            @UncoalescedApiClient ApiClient uncoalescedApiClient,
+            RequestHedger requestHedger,
+            RequestScheduler requestScheduler,
+            RouteCache routeCache,
+            RouteSession routeSession,
+            OfflineRouter offlineRouter
+    ) {
         this.mApiClient = apiClient;
+        this.mUncoalescedApiClient = uncoalescedApiClient;
+        this.mRequestHedger = requestHedger;
+        this.mRequestScheduler = requestScheduler;
+        this.mRouteCache = routeCache;
+        this.mRouteSession = routeSession;
+        this.mOfflineRouter = offlineRouter;
+    }
+
+    /**
+     * returns route previewed by user if it is from start point to end point
+     */
+    @Nullable
+    public RouteSession.PreviewedRoute getPreviewedRoute(LatLng start, LatLng end) {
+        return mRouteSession.getPreviewedRoute(
+                new org.neshan.data.model.LatLng(start.getLatitude(), start.getLongitude()),
+                new org.neshan.data.model.LatLng(end.getLatitude(), end.getLongitude())
+        );
+    }
+
+    /**
+     * loads routes from start point to end point, answers from previewed route or cache if same
+     * route is loaded recently otherwise from api service. if api service is not reachable
+     * route is found on device
+     *
+     * @param rerouting if true (user is off route while navigating) request fails fast and is
+     *                  retried, also a hedged request is sent if server answers slower than usual
+     */
+    public Single<RoutingResponse> getDirection(RoutingType routType, LatLng start, LatLng end, int bearing, boolean rerouting) {
+
+        if (!rerouting) {
+            RouteSession.PreviewedRoute previewedRoute = getPreviewedRoute(start, end);
+            if (previewedRoute != null && previewedRoute.getRoutingType() == routType) {
+                return Single.just(previewedRoute.getResponse());
+            }
+        }
+
+        RoutingResponse cachedResponse = mRouteCache.get(routType, start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude(), bearing);
+        if (cachedResponse != null) {
+            return Single.just(cachedResponse);
+        }
+
+        String startPoint = start.getLatitude() + "," + start.getLongitude();
+        String endPoint = end.getLatitude() + "," + end.getLongitude();
+
+        Single<RoutingResponse> request = mApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing);
+
+        if (rerouting) {
+            Single<RoutingResponse> hedgedRequest = mUncoalescedApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing);
+            request = mRequestHedger.hedge(ApiClient.ENDPOINT_DIRECTION, request, hedgedRequest, RetryPolicy.NAVIGATION);
+            return mRequestScheduler.schedule(RequestPriority.NAVIGATION, request)
+                    .compose(RetryPolicy.NAVIGATION.<RoutingResponse>apply())
+                    .doOnSuccess(response -> cacheResponse(routType, start, end, bearing, response))
+                    .onErrorResumeNext(error -> getOfflineDirection(start, end, error));
+        }
+
+        // first route of navigation is loaded like any foreground route, only reroutes are urgent
+        return mRequestScheduler.schedule(RequestPriority.ROUTE_PREVIEW, request)
+                .compose(RetryPolicy.DEFAULT.<RoutingResponse>apply())
+                .doOnSuccess(response -> cacheResponse(routType, start, end, bearing, response))
+                .onErrorResumeNext(error -> getOfflineDirection(start, end, error));
+
+    }
+
+    /**
+     * finds route on device after network failure, timeout or server error, original error is
+     * passed on if there is no offline route
+     * note: offline routing does not consider routing type
+     */
+    private Single<RoutingResponse> getOfflineDirection(LatLng start, LatLng end, Throwable error) {
+
+        if (!RetryPolicy.isServiceUnavailable(error)) {
+            return Single.error(error);
+        }
+
+        return Single.defer(() -> {
+            RoutingResponse response = mOfflineRouter.getDirection(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+            return response != null ? Single.just(response) : Single.<RoutingResponse>error(error);
+        }).subscribeOn(Schedulers.computation());
+
+    }
+
+    private void cacheResponse(RoutingType routType, LatLng start, LatLng end, int bearing, RoutingResponse response) {
+        if (response.isSuccessFull()) {
+            mRouteCache.put(routType, start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude(), bearing, response);
+        }
     }
 
     /**
-     * loads routes from start point to end point from api service
+     * loads route speculatively with lowest priority and without retry, used for routes which may never be shown
      */
-    public Single<RoutingResponse> getDirection(RoutingType routType, LatLng start, LatLng end, int bearing) {
+    public Single<RoutingResponse> prefetchDirection(RoutingType routType, LatLng start, LatLng end, int bearing) {
 
         String startPoint = start.getLatitude() + "," + start.getLongitude();
         String endPoint = end.getLatitude() + "," + end.getLongitude();
 
-        return mApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing)
-                .subscribeOn(Schedulers.io());
+        return mRequestScheduler.schedule(
+                RequestPriority.PREFETCH,
+                mApiClient.getDirection(routType.getValue(), startPoint, endPoint, bearing)
+        );
 
     }
 
@@ -9,25 +9,34 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import dagger.hilt.android.lifecycle.HiltViewModel
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
+import io.reactivex.rxjava3.core.Single
 import io.reactivex.rxjava3.core.SingleObserver
 import io.reactivex.rxjava3.disposables.CompositeDisposable
 import io.reactivex.rxjava3.disposables.Disposable
+import io.reactivex.rxjava3.schedulers.Schedulers
 import org.neshan.common.model.LatLng
-import org.neshan.common.utils.PolylineEncoding
-import org.neshan.component.util.distanceFrom
+import org.neshan.component.util.RouteMetrics
+import org.neshan.component.util.Geodesic
 import org.neshan.component.util.equalsTo
 import org.neshan.component.util.getError
+import org.neshan.component.util.getPoint
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.SimplifiedRouteGeometry
 import org.neshan.data.model.enums.RoutingType
 import org.neshan.data.model.error.GeneralError
-import org.neshan.data.model.response.RoutingResponse
+import org.neshan.data.model.response.Leg
 import org.neshan.data.util.Event
+import org.neshan.data.util.RouteGeometryDecoder
 import javax.inject.Inject
+import kotlin.math.ceil
 import kotlin.math.sqrt
 
 @HiltViewModel
 class NavigationViewModel @Inject constructor(
     application: Application,
-    private val mModel: NavigationModel
+    private val mModel: NavigationModel,
+    private val mStreetNamePrefetcher: StreetNamePrefetcher,
+    private val mReroutePrefetcher: ReroutePrefetcher
 ) : AndroidViewModel(application) {
 
     companion object {
@@ -40,18 +49,23 @@ class NavigationViewModel @Inject constructor(
 
     val distance = ObservableField<String>()
 
+    // street name of next maneuver, null until it is prefetched
+    val upcomingStreetName = ObservableField<String?>()
+
     private val mCompositeDisposable by lazy { CompositeDisposable() }
 
     private var mStartPoint: LatLng? = null
 
     private var mEndPoint: LatLng? = null
 
+    private var mRoutingType = RoutingType.CAR
+
     private val _generalError = MutableLiveData<Event<GeneralError>>()
     val generalError: LiveData<Event<GeneralError>> by lazy { _generalError }
 
     // remained points for routing
-    private val _progressPoints = MutableLiveData<ArrayList<LatLng>>()
-    val progressPoints: LiveData<ArrayList<LatLng>> by lazy { _progressPoints }
+    private val _progressPoints = MutableLiveData<RouteProgress>()
+    val progressPoints: LiveData<RouteProgress> by lazy { _progressPoints }
 
     private val _reachedDestination = MutableLiveData<Boolean>()
     val reachedDestination: LiveData<Boolean> by lazy { _reachedDestination }
@@ -59,7 +73,16 @@ class NavigationViewModel @Inject constructor(
     private val _markerPosition = MutableLiveData<LatLng>()
     val markerPosition: LiveData<LatLng> by lazy { _markerPosition }
 
-    private var mRoutingPoints: ArrayList<LatLng>? = null
+    private var mRouteGeometry: RouteGeometry? = null
+
+    // mRouteGeometry with its simplifications for zoomed out map
+    private var mSimplifiedGeometry: SimplifiedRouteGeometry? = null
+
+    // distance and bearing tables of mRouteGeometry
+    private var mRouteMetrics = RouteMetrics.EMPTY
+
+    // leg of active route, mRouteGeometry is created from it
+    private var mLeg: Leg? = null
 
     private var mUserLocation: Location? = null
 
@@ -80,7 +103,12 @@ class NavigationViewModel @Inject constructor(
         mStartPoint = startPoint
         mEndPoint = endPoint
 
-        loadDirection(mStartPoint!!, mEndPoint!!, RoutingType.CAR, 0)
+        // previewed route is used without network call, reroutes use its routing type too
+        mModel.getPreviewedRoute(startPoint, endPoint)?.let { previewedRoute ->
+            mRoutingType = previewedRoute.routingType
+        }
+
+        loadDirection(mStartPoint!!, mEndPoint!!, mRoutingType, 0, false)
 
     }
 
@@ -93,6 +121,9 @@ class NavigationViewModel @Inject constructor(
 
         cancelMarkerAnimation()
 
+        mStreetNamePrefetcher.clear()
+        mReroutePrefetcher.clear()
+
         super.onCleared()
 
     }
@@ -105,15 +136,28 @@ class NavigationViewModel @Inject constructor(
 
         mUserLocation = location
 
-        mSpeedCalculator.update(LatLng(location.latitude, location.longitude))
+        mSpeedCalculator.update(location.latitude, location.longitude)
 
         // if loading direction -> avoid updating progress
-        if (!mRoutingPoints.isNullOrEmpty() && !mLoadingDirection) {
-            calculateUserProgress(mRoutingPoints!!)
+        val routeGeometry = mRouteGeometry
+        if (routeGeometry != null && !routeGeometry.isEmpty() && !mLoadingDirection) {
+            calculateUserProgress(routeGeometry)
+            updateUpcomingStreetName()
         }
 
     }
 
+    /**
+     * shows street name of next maneuver, names are prefetched in background so it is
+     * checked on every location update
+     * */
+    private fun updateUpcomingStreetName() {
+        val streetName = mStreetNamePrefetcher.getNextStreetName(mLastReachedPointIndex)
+        upcomingStreetName.set(
+            streetName?.let { name -> getApplication<Application>().getString(R.string.upcoming_street, name) }
+        )
+    }
+
     /**
      * try to load direction detail from server
      */
@@ -121,47 +165,80 @@ class NavigationViewModel @Inject constructor(
         startPoint: LatLng,
         endPoint: LatLng,
         routingType: RoutingType,
-        bearing: Int
+        bearing: Int,
+        rerouting: Boolean
     ) {
         if (!mLoadingDirection) {
             mLoadingDirection = true
-            mModel.getDirection(routingType, startPoint, endPoint, bearing)
+
+            // if user missed an upcoming turn, its route may be already prefetched
+            val prefetchedRoute = if (rerouting) {
+                mReroutePrefetcher.findRoute(startPoint, bearing.toFloat())
+            } else {
+                null
+            }
+            val direction = if (prefetchedRoute != null) {
+                Single.just(prefetchedRoute)
+            } else {
+                mModel.getDirection(routingType, startPoint, endPoint, bearing, rerouting)
+            }
+
+            // on reroute, tail of new route usually equals to tail of current route
+            val previousLeg = if (rerouting) mLeg else null
+            val previousGeometry = mRouteGeometry
+
+            direction
+                // routes from memory are emitted on subscribing thread, keep them off main thread too
+                .subscribeOn(Schedulers.io())
+                // create route geometry, its simplifications and metrics off main thread,
+                // main thread only receives ready to draw path
+                .flatMap { response ->
+                    val leg = response.routes?.firstOrNull()?.legs?.firstOrNull()
+                    if (leg != null && previousLeg != null && previousGeometry != null) {
+                        val sharedStepCount = RouteSplicer.getSharedSuffixStepCount(previousLeg, leg)
+                        RouteSplicer.splice(previousLeg, previousGeometry, leg, sharedStepCount).map { routeGeometry ->
+                            LoadedRoute.create(leg, routeGeometry, sharedStepCount)
+                        }
+                    } else if (leg != null) {
+                        // steps of new route are decoded in parallel
+                        RouteGeometryDecoder.decode(leg.steps).map { routeGeometry ->
+                            LoadedRoute.create(leg, routeGeometry, 0)
+                        }
+                    } else {
+                        Single.just(LoadedRoute.create(null, RouteGeometry.EMPTY, 0))
+                    }
+                }
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(object : SingleObserver<RoutingResponse> {
+                .subscribe(object : SingleObserver<LoadedRoute> {
 
                     override fun onSubscribe(disposable: Disposable) {
                         mCompositeDisposable.add(disposable)
                     }
 
-                    override fun onSuccess(response: RoutingResponse) {
+                    override fun onSuccess(result: LoadedRoute) {
                         mLoadingDirection = false
 
-                        if (response.routes != null) {
-
-                            mRoutingPoints = ArrayList()
+                        val (leg, simplifiedGeometry, routeMetrics, sharedStepCount) = result
+                        if (leg != null) {
 
-                            try {
-                                response.routes?.firstOrNull()?.legs?.firstOrNull()?.let { leg ->
+                            val routeGeometry = simplifiedGeometry.geometry
+                            mLeg = leg
+                            mRouteGeometry = routeGeometry
+                            mSimplifiedGeometry = simplifiedGeometry
+                            mRouteMetrics = routeMetrics
 
-                                    leg.steps.map { step ->
-                                        mRoutingPoints!!.addAll(PolylineEncoding.decode(step.encodedPolyline))
+                            mStreetNamePrefetcher.setRoute(leg, routeGeometry, sharedStepCount)
+                            mReroutePrefetcher.setRoute(leg, routeGeometry, endPoint, routingType)
 
-                                        if (mRoutingPoints!!.size >= 2) {
-                                            _progressPoints.postValue(mRoutingPoints!!)
+                            if (routeGeometry.size >= 2) {
+                                _progressPoints.postValue(RouteProgress(simplifiedGeometry, routeMetrics, 0))
 
-                                            _markerPosition.postValue(mRoutingPoints!!.first())
-                                        }
-
-                                    }
+                                _markerPosition.postValue(routeGeometry.getPoint(0))
+                            }
 
-                                    distance.set(leg.distance.text)
-                                    duration.set(leg.duration.text)
+                            distance.set(leg.distance.text)
+                            duration.set(leg.duration.text)
 
-                                }
-                            } catch (e: NullPointerException) {
-                                // failure in parsing routing detail
-                                e.printStackTrace()
-                            }
                         }
                     }
 
@@ -177,16 +254,26 @@ class NavigationViewModel @Inject constructor(
     /**
      * calculate remained routing points
      * */
-    private fun calculateUserProgress(points: ArrayList<LatLng>) {
-
-        val currentPoint = mRoutingPoints!!.getOrNull(mLastReachedPointIndex)
-        val nextPoint = mRoutingPoints!!.getOrNull(mLastReachedPointIndex + 1)
-        if (currentPoint != null && nextPoint != null && mUserLocation != null) {
-            val userPoint = LatLng(mUserLocation!!.latitude, mUserLocation!!.longitude)
-
-            val currentToNextDistance = currentPoint.distanceFrom(nextPoint)[0]
-            val currentToUserDistance = currentPoint.distanceFrom(userPoint)[0]
-            val nextToUserDistance = nextPoint.distanceFrom(userPoint)[0]
+    private fun calculateUserProgress(routeGeometry: RouteGeometry) {
+
+        if (mLastReachedPointIndex + 1 < routeGeometry.size && mUserLocation != null) {
+            val userLatitude = mUserLocation!!.latitude
+            val userLongitude = mUserLocation!!.longitude
+
+            // distances of a few meters, no point objects are created per location update
+            val currentToNextDistance = mRouteMetrics.getSegmentLength(mLastReachedPointIndex)
+            val currentToUserDistance = Geodesic.distance(
+                routeGeometry.getLatitude(mLastReachedPointIndex),
+                routeGeometry.getLongitude(mLastReachedPointIndex),
+                userLatitude,
+                userLongitude
+            )
+            val nextToUserDistance = Geodesic.distance(
+                routeGeometry.getLatitude(mLastReachedPointIndex + 1),
+                routeGeometry.getLongitude(mLastReachedPointIndex + 1),
+                userLatitude,
+                userLongitude
+            )
 
             // check if user moved backward
             val isUserMovedBackward = nextToUserDistance > currentToNextDistance
@@ -214,38 +301,49 @@ class NavigationViewModel @Inject constructor(
                 // cancel marker animation
                 cancelMarkerAnimation()
 
+                // names of steps shared with new route are kept until it is loaded
+                mStreetNamePrefetcher.cancel()
+
                 // try to recalculate path
                 val startPoint = LatLng(mUserLocation!!.latitude, mUserLocation!!.longitude)
                 loadDirection(
                     startPoint,
                     mEndPoint!!,
-                    RoutingType.CAR,
-                    mUserLocation!!.bearing.toInt()
+                    mRoutingType,
+                    mUserLocation!!.bearing.toInt(),
+                    true
                 )
 
             } else if (currentToUserDistance >= currentToNextDistance || (currentToNextDistance - currentToUserDistance) < 1) {
                 // user reached next point -> update progress
                 mLastReachedPointIndex++
 
-                // get all points after closest point as remained routing points
-                val remainedPoints = mRoutingPoints!!.subList(mLastReachedPointIndex, points.size)
+                mStreetNamePrefetcher.onProgress(mLastReachedPointIndex)
+                mReroutePrefetcher.onProgress(mLastReachedPointIndex)
+
+                // get all points after closest point as remained routing points, points are not copied
+                val remainedGeometry = routeGeometry.subGeometry(mLastReachedPointIndex)
 
                 // if no points remained -> reached destination
-                if (remainedPoints.size <= 1) {
+                if (remainedGeometry.size <= 1) {
                     _reachedDestination.postValue(true)
                 } else {
 
-                    val startingPoint = remainedPoints.first()
+                    val startingPoint = remainedGeometry.getPoint(0)
 
                     // check if start point is new
                     if (mLastStartingPoint?.equalsTo(startingPoint) != true) {
 
                         mLastStartingPoint = startingPoint
 
-                        _progressPoints.postValue(ArrayList(remainedPoints))
+                        mSimplifiedGeometry?.let { simplifiedGeometry ->
+                            _progressPoints.postValue(RouteProgress(simplifiedGeometry, mRouteMetrics, mLastReachedPointIndex))
+                        }
+
+                        updateRemainedDistance(mLastReachedPointIndex)
 
                         // start animating marker
-                        startMarkerAnimation(startingPoint, remainedPoints[1])
+                        startMarkerAnimation(routeGeometry, mLastReachedPointIndex)
 
                     }
 
@@ -258,9 +356,31 @@ class NavigationViewModel @Inject constructor(
     }
 
     /**
-     * animates marker position from start point to end point
+     * scales leg distance and duration to remained part of route from point [pointIndex]
+     * */
+    private fun updateRemainedDistance(pointIndex: Int) {
+        val leg = mLeg ?: return
+        val context = getApplication<Application>()
+
+        val remainedDistance = mRouteMetrics.getRemainingDistance(pointIndex)
+        distance.set(
+            if (remainedDistance >= 1000) {
+                context.getString(R.string.remained_distance_in_kilometers, remainedDistance / 1000)
+            } else {
+                context.getString(R.string.remained_distance_in_meters, remainedDistance.toInt())
+            }
+        )
+
+        val remainedDuration = leg.duration.value * (1 - mRouteMetrics.getProgress(pointIndex))
+        duration.set(context.getString(R.string.remained_duration_in_minutes, ceil(remainedDuration / 60).toInt()))
+    }
+
+    /**
+     * animates marker position from point [pointIndex] of route to next point
      * */
-    private fun startMarkerAnimation(start: LatLng, end: LatLng) {
+    private fun startMarkerAnimation(routeGeometry: RouteGeometry, pointIndex: Int) {
+        val start = routeGeometry.getPoint(pointIndex)
+        val end = routeGeometry.getPoint(pointIndex + 1)
         if (start.equalsTo(end)) {
             return
         }
@@ -269,7 +389,7 @@ class NavigationViewModel @Inject constructor(
         cancelMarkerAnimation()
 
         // animate marker from start point to end point in calculated duration (animationDuration)
-        val distance = start.distanceFrom(end).getOrNull(0) ?: 1f
+        val distance = mRouteMetrics.getSegmentLength(pointIndex).toFloat()
         if (distance > 0) {
 
             val animationDuration = distance * mSpeedCalculator.getAverageSpeedRatio()
@@ -308,6 +428,28 @@ class NavigationViewModel @Inject constructor(
         }
     }
 
+    /**
+     * loaded route with its simplified geometry and metrics, [sharedStepCount] is number of
+     * last steps reused from previous route
+     * */
+    private data class LoadedRoute(
+        val leg: Leg?,
+        val simplifiedGeometry: SimplifiedRouteGeometry,
+        val routeMetrics: RouteMetrics,
+        val sharedStepCount: Int
+    ) {
+        companion object {
+            fun create(leg: Leg?, routeGeometry: RouteGeometry, sharedStepCount: Int): LoadedRoute {
+                return LoadedRoute(
+                    leg,
+                    SimplifiedRouteGeometry.create(routeGeometry),
+                    RouteMetrics(routeGeometry),
+                    sharedStepCount
+                )
+            }
+        }
+    }
+
     /**
      * helper class for calculating average speed according to past 5 visited locations
      * */
@@ -316,31 +458,34 @@ class NavigationViewModel @Inject constructor(
         private val mRecords =
             floatArrayOf(defaultSpeed, defaultSpeed, defaultSpeed, defaultSpeed, defaultSpeed)
         private var mLastTime: Long = 0
-        private var mLastLocation: LatLng? = null
+        private var mHasLastLocation = false
+        private var mLastLatitude = 0.0
+        private var mLastLongitude = 0.0
 
         fun getAverageSpeedRatio(): Float {
             return mRecords.average().toFloat()
         }
 
-        fun update(latLng: LatLng) {
+        fun update(latitude: Double, longitude: Double) {
             val newTime = System.currentTimeMillis()
 
-            if (mLastLocation != null) {
+            if (mHasLastLocation) {
                 // calculate time difference with previous update
                 val duration = newTime - mLastTime
 
                 // calculate traveled distance from previous update
-                mLastLocation?.distanceFrom(latLng)?.getOrNull(0)?.let { distance ->
-                    if (distance > 0 && duration > 0) {
-                        val speed = duration / distance
-                        mRecords[mIndex % mRecords.size] = speed
-                        mIndex++
-                    }
+                val distance = Geodesic.distance(mLastLatitude, mLastLongitude, latitude, longitude).toFloat()
+                if (distance > 0 && duration > 0) {
+                    val speed = duration / distance
+                    mRecords[mIndex % mRecords.size] = speed
+                    mIndex++
                 }
 
             }
 
-            mLastLocation = latLng
+            mHasLastLocation = true
+            mLastLatitude = latitude
+            mLastLongitude = longitude
             mLastTime = newTime
 
         }
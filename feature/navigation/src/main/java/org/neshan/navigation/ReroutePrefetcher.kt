@@ -0,0 +1,259 @@
+package org.neshan.navigation
+
+import io.reactivex.rxjava3.disposables.Disposable
+import org.neshan.common.model.LatLng
+import org.neshan.component.util.Geodesic
+import org.neshan.component.util.equalsTo
+import org.neshan.data.AppConfig
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.enums.RoutingType
+import org.neshan.data.model.response.Leg
+import org.neshan.data.model.response.RoutingResponse
+import javax.inject.Inject
+import kotlin.math.abs
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * loads routes from likely wrong turns of upcoming decision points (steps starting with a turn)
+ * in background with low priority. if user misses the turn, new route is served from memory
+ * @param depth: number of upcoming decision points to prefetch
+ * @param budget: maximum number of requests sent for a route
+ * @param overshootInMeters: distance after decision point, where user is assumed to be
+ * after going straight instead of turning
+ * */
+class ReroutePrefetcher(
+    private val mModel: NavigationModel,
+    private val depth: Int,
+    private val budget: Int,
+    private val overshootInMeters: Double
+) {
+
+    companion object {
+        // smaller direction changes are not considered as turns
+        private const val MIN_TURN_ANGLE_IN_DEGREES = 30f
+
+        // maximum distance and bearing difference of user from start of prefetched route to use it
+        private const val MAX_MATCH_DISTANCE_IN_METERS = 50f
+        private const val MAX_MATCH_BEARING_IN_DEGREES = 45f
+
+        private const val METERS_PER_DEGREE = 111_320.0
+    }
+
+    @Inject
+    constructor(model: NavigationModel) : this(
+        model,
+        AppConfig.REROUTE_PREFETCH_DEPTH,
+        AppConfig.REROUTE_PREFETCH_BUDGET,
+        AppConfig.REROUTE_PREFETCH_OVERSHOOT_IN_METERS
+    )
+
+    private class WrongTurn(val startPoint: LatLng, val bearing: Float) {
+        var response: RoutingResponse? = null
+    }
+
+    private var mLeg: Leg? = null
+
+    private var mStepIndex: RouteStepIndex? = null
+
+    // geometry of mLeg, step points are read from it so steps are never decoded
+    private var mRouteGeometry = RouteGeometry.EMPTY
+
+    private var mEndPoint: LatLng? = null
+
+    private var mRoutingType = RoutingType.CAR
+
+    // wrong turns by index of step they belong to
+    private val mWrongTurns = HashMap<Int, WrongTurn>()
+
+    // steps which are already checked for wrong turns
+    private val mCheckedSteps = HashSet<Int>()
+
+    private val mRequests = ArrayList<Disposable>()
+
+    private var mRequestCount = 0
+
+    // changes whenever route is replaced, results of previous routes are ignored
+    private var mRouteVersion = 0
+
+    /**
+     * replaces active route, drops prefetched routes of previous route
+     * @param routeGeometry: geometry created from steps of [leg]
+     * */
+    @Synchronized
+    fun setRoute(leg: Leg, routeGeometry: RouteGeometry, endPoint: LatLng, routingType: RoutingType) {
+        clear()
+
+        mLeg = leg
+        mStepIndex = RouteStepIndex(leg)
+        mRouteGeometry = routeGeometry
+        mEndPoint = endPoint
+        mRoutingType = routingType
+
+        prefetch(1)
+    }
+
+    /**
+     * prefetches routes of next decision points after user reached point with [routePointIndex]
+     * */
+    @Synchronized
+    fun onProgress(routePointIndex: Int) {
+        val stepIndex = mStepIndex?.getStepIndex(routePointIndex) ?: -1
+        if (stepIndex >= 0) {
+            prefetch(stepIndex + 1)
+        }
+    }
+
+    /**
+     * returns prefetched route starting near user location in user moving direction, null if
+     * there is no such route
+     * */
+    @Synchronized
+    fun findRoute(location: LatLng, bearing: Float): RoutingResponse? {
+        val iterator = mWrongTurns.values.iterator()
+        while (iterator.hasNext()) {
+            val wrongTurn = iterator.next()
+            val response = wrongTurn.response ?: continue
+
+            val distance = Geodesic.distance(
+                wrongTurn.startPoint.latitude,
+                wrongTurn.startPoint.longitude,
+                location.latitude,
+                location.longitude
+            )
+            if (distance <= MAX_MATCH_DISTANCE_IN_METERS
+                && getAngleDifference(wrongTurn.bearing, bearing) <= MAX_MATCH_BEARING_IN_DEGREES
+            ) {
+                iterator.remove()
+                return response
+            }
+        }
+        return null
+    }
+
+    /**
+     * cancels running requests and drops all prefetched routes
+     * */
+    @Synchronized
+    fun clear() {
+        mRouteVersion++
+        mRequests.forEach { disposable -> disposable.dispose() }
+        mRequests.clear()
+        mWrongTurns.clear()
+        mCheckedSteps.clear()
+        mRequestCount = 0
+        mLeg = null
+        mStepIndex = null
+        mRouteGeometry = RouteGeometry.EMPTY
+        mEndPoint = null
+    }
+
+    private fun prefetch(fromStepIndex: Int) {
+        val leg = mLeg ?: return
+        val routeStepIndex = mStepIndex ?: return
+        val endPoint = mEndPoint ?: return
+
+        var decisionPointCount = 0
+        var stepIndex = fromStepIndex
+        while (stepIndex < leg.steps.size && decisionPointCount < depth && mRequestCount < budget) {
+            val wrongTurn = mWrongTurns[stepIndex] ?: if (mCheckedSteps.add(stepIndex)) {
+                createWrongTurn(leg, routeStepIndex, stepIndex)?.also { wrongTurn ->
+                    mWrongTurns[stepIndex] = wrongTurn
+                    request(wrongTurn, endPoint)
+                }
+            } else {
+                null
+            }
+
+            if (wrongTurn != null) {
+                decisionPointCount++
+            }
+            stepIndex++
+        }
+    }
+
+    private fun request(wrongTurn: WrongTurn, endPoint: LatLng) {
+        mRequestCount++
+
+        val routeVersion = mRouteVersion
+        val disposable = mModel.prefetchDirection(mRoutingType, wrongTurn.startPoint, endPoint, wrongTurn.bearing.toInt())
+            .subscribe({ response ->
+                onLoaded(routeVersion, wrongTurn, response)
+            }, {
+                // prefetch is best effort, reroute loads route itself if it is not prefetched
+            })
+        mRequests.add(disposable)
+    }
+
+    @Synchronized
+    private fun onLoaded(routeVersion: Int, wrongTurn: WrongTurn, response: RoutingResponse) {
+        if (routeVersion == mRouteVersion && response.isSuccessFull() && !response.routes.isNullOrEmpty()) {
+            wrongTurn.response = response
+        }
+    }
+
+    /**
+     * finds where user would be if goes straight instead of following step, null if step does
+     * not start with a turn
+     * */
+    private fun createWrongTurn(leg: Leg, routeStepIndex: RouteStepIndex, stepIndex: Int): WrongTurn? {
+        if (stepIndex < 1) {
+            return null
+        }
+
+        val geometry = mRouteGeometry
+        val startIndex = routeStepIndex.getStepStartIndex(stepIndex)
+        val endIndex = routeStepIndex.getStepEndIndex(stepIndex)
+        if (endIndex - startIndex < 2 || endIndex > geometry.size) {
+            return null
+        }
+        val decisionPoint = LatLng(geometry.getLatitude(startIndex), geometry.getLongitude(startIndex))
+
+        // previous step usually ends at decision point, use last distinct point before it
+        var previousPoint: LatLng? = null
+        var index = startIndex - 1
+        while (index >= routeStepIndex.getStepStartIndex(stepIndex - 1) && previousPoint == null) {
+            val point = LatLng(geometry.getLatitude(index), geometry.getLongitude(index))
+            if (!point.equalsTo(decisionPoint)) {
+                previousPoint = point
+            }
+            index--
+        }
+        if (previousPoint == null) {
+            return null
+        }
+
+        val incomingBearing = Geodesic.bearing(
+            previousPoint.latitude,
+            previousPoint.longitude,
+            decisionPoint.latitude,
+            decisionPoint.longitude
+        ).toFloat()
+        val turnAngle = getAngleDifference(incomingBearing, leg.steps[stepIndex].bearingAfter.toFloat())
+        if (turnAngle < MIN_TURN_ANGLE_IN_DEGREES) {
+            return null
+        }
+
+        return WrongTurn(getDestination(decisionPoint, incomingBearing, overshootInMeters), normalize(incomingBearing))
+    }
+
+    /**
+     * point at distance from start point in direction of bearing, flat earth approximation is
+     * accurate enough for a few hundred meters
+     * */
+    private fun getDestination(start: LatLng, bearing: Float, distanceInMeters: Double): LatLng {
+        val radians = Math.toRadians(bearing.toDouble())
+        val latitude = start.latitude + distanceInMeters * cos(radians) / METERS_PER_DEGREE
+        val longitude = start.longitude +
+                distanceInMeters * sin(radians) / (METERS_PER_DEGREE * cos(Math.toRadians(start.latitude)))
+        return LatLng(latitude, longitude)
+    }
+
+    private fun getAngleDifference(bearing1: Float, bearing2: Float): Float {
+        val difference = abs(normalize(bearing1) - normalize(bearing2))
+        return if (difference > 180) 360 - difference else difference
+    }
+
+    private fun normalize(bearing: Float): Float = ((bearing % 360) + 360) % 360
+
+}
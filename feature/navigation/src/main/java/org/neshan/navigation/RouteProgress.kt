@@ -0,0 +1,13 @@
+package org.neshan.navigation
+
+import org.neshan.component.util.RouteMetrics
+import org.neshan.data.model.SimplifiedRouteGeometry
+
+/**
+ * remained part of route, from [pointIndex] of route geometry to its end
+ * */
+data class RouteProgress(
+    val route: SimplifiedRouteGeometry,
+    val metrics: RouteMetrics,
+    val pointIndex: Int
+)
@@ -0,0 +1,61 @@
+package org.neshan.navigation
+
+import io.reactivex.rxjava3.core.Single
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.response.Leg
+import org.neshan.data.util.PolylineDecoder
+import org.neshan.data.util.RouteGeometryDecoder
+
+/**
+ * joins a rerouted leg with the previous one. when user misses a turn, new route usually
+ * rejoins the previous route and rest of it is unchanged, so points of the shared tail are
+ * taken from previous route geometry instead of steps
+ * */
+object RouteSplicer {
+
+    /**
+     * number of last steps of [leg] with exactly the same geometry as last steps of [previousLeg].
+     * each step polyline is encoded on its own, so equal encoded polylines mean equal geometries
+     * and steps are compared without decoding them
+     * */
+    fun getSharedSuffixStepCount(previousLeg: Leg, leg: Leg): Int {
+        val previousSteps = previousLeg.steps
+        val steps = leg.steps
+
+        var count = 0
+        while (count < previousSteps.size && count < steps.size) {
+            val previousPolyline = previousSteps[previousSteps.size - 1 - count].encodedPolyline
+            val polyline = steps[steps.size - 1 - count].encodedPolyline
+            if (previousPolyline != polyline) {
+                break
+            }
+            count++
+        }
+        return count
+    }
+
+    /**
+     * creates route geometry of [leg], only new steps are decoded and points of shared tail are
+     * copied from [previousGeometry]. without a shared tail all steps are decoded in parallel
+     * @param previousGeometry: route geometry of [previousLeg] created from its steps
+     * */
+    fun splice(previousLeg: Leg, previousGeometry: RouteGeometry, leg: Leg, sharedStepCount: Int): Single<RouteGeometry> {
+        if (sharedStepCount <= 0) {
+            return RouteGeometryDecoder.decode(leg.steps)
+        }
+
+        return Single.fromCallable { spliceTail(previousLeg, previousGeometry, leg, sharedStepCount) }
+    }
+
+    private fun spliceTail(previousLeg: Leg, previousGeometry: RouteGeometry, leg: Leg, sharedStepCount: Int): RouteGeometry {
+        val newSteps = leg.steps.subList(0, leg.steps.size - sharedStepCount)
+        val tailStart = RouteStepIndex(previousLeg).getStepStartIndex(previousLeg.steps.size - sharedStepCount)
+
+        val newPointCount = newSteps.sumOf { step -> PolylineDecoder.countPoints(step.encodedPolyline) }
+        return RouteGeometry.Builder(newPointCount + previousGeometry.size - tailStart)
+            .apply { newSteps.forEach { step -> addStep(step) } }
+            .addGeometry(previousGeometry, tailStart)
+            .build()
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.neshan.navigation
+
+import org.neshan.data.model.response.Leg
+import org.neshan.data.util.PolylineDecoder
+
+/**
+ * maps indices of route geometry points (created from steps of the leg) to steps of the leg.
+ * point counts are read from encoded polylines, steps are not decoded
+ * */
+class RouteStepIndex(leg: Leg) {
+
+    // index of first route point of each step
+    private val mStepStartIndices = IntArray(leg.steps.size)
+
+    // number of route points of all steps
+    private val mPointCount: Int
+
+    val stepCount: Int
+        get() = mStepStartIndices.size
+
+    init {
+        var pointIndex = 0
+        leg.steps.forEachIndexed { index, step ->
+            mStepStartIndices[index] = pointIndex
+            pointIndex += PolylineDecoder.countPoints(step.encodedPolyline)
+        }
+        mPointCount = pointIndex
+    }
+
+    fun getStepStartIndex(stepIndex: Int): Int = mStepStartIndices[stepIndex]
+
+    /**
+     * index after last route point of step, start index of next step
+     * */
+    fun getStepEndIndex(stepIndex: Int): Int {
+        return if (stepIndex + 1 < mStepStartIndices.size) mStepStartIndices[stepIndex + 1] else mPointCount
+    }
+
+    /**
+     * finds step containing route point, returns -1 if there is no such step
+     * */
+    fun getStepIndex(routePointIndex: Int): Int {
+        var low = 0
+        var high = mStepStartIndices.size - 1
+        var result = -1
+        while (low <= high) {
+            val middle = (low + high) ushr 1
+            if (mStepStartIndices[middle] <= routePointIndex) {
+                result = middle
+                low = middle + 1
+            } else {
+                high = middle - 1
+            }
+        }
+        return result
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.neshan.navigation
+
+import io.reactivex.rxjava3.disposables.Disposable
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.response.Leg
+import org.neshan.data.network.RequestPriority
+import org.neshan.data.repository.AddressRepository
+import javax.inject.Inject
+
+/**
+ * reverse geocodes upcoming maneuver points (start point of each step) of the active route
+ * in background with low priority, so street names are ready before user reaches them
+ * */
+class StreetNamePrefetcher @Inject constructor(
+    private val mAddressRepository: AddressRepository
+) {
+
+    companion object {
+        // number of upcoming maneuvers to prefetch
+        private const val PREFETCH_COUNT = 3
+        private const val MAX_CACHED_NAMES = 20
+    }
+
+    // packed [lat, lng] of maneuver points of active route
+    private var mManeuverPoints = DoubleArray(0)
+
+    private var mStepIndex: RouteStepIndex? = null
+
+    // street names by step index, least recently used one is removed first
+    private val mStreetNames = object : LinkedHashMap<Int, String>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, String>?): Boolean {
+            return size > MAX_CACHED_NAMES
+        }
+    }
+
+    private val mRequests = HashMap<Int, Disposable>()
+
+    // changes whenever route is replaced, results of previous routes are ignored
+    private var mRouteVersion = 0
+
+    /**
+     * replaces active route, drops prefetched names of previous route except names of
+     * last [sharedStepCount] steps which are the same in both routes
+     * @param routeGeometry: geometry created from steps of [leg], maneuver points are read from it
+     * */
+    @Synchronized
+    fun setRoute(leg: Leg, routeGeometry: RouteGeometry, sharedStepCount: Int = 0) {
+        val previousStepCount = mStepIndex?.stepCount ?: 0
+        val sharedNames = HashMap<Int, String>()
+        if (sharedStepCount > 0) {
+            for (offset in 1..minOf(sharedStepCount, previousStepCount, leg.steps.size)) {
+                mStreetNames[previousStepCount - offset]?.let { name ->
+                    sharedNames[leg.steps.size - offset] = name
+                }
+            }
+        }
+
+        clear()
+        mStreetNames.putAll(sharedNames)
+
+        val steps = leg.steps
+        mManeuverPoints = DoubleArray(steps.size * 2)
+        val stepIndex = RouteStepIndex(leg)
+        mStepIndex = stepIndex
+
+        for (index in steps.indices) {
+            val startIndex = stepIndex.getStepStartIndex(index)
+            if (startIndex < stepIndex.getStepEndIndex(index) && startIndex < routeGeometry.size) {
+                mManeuverPoints[index * 2] = routeGeometry.getLatitude(startIndex)
+                mManeuverPoints[index * 2 + 1] = routeGeometry.getLongitude(startIndex)
+            } else {
+                mManeuverPoints[index * 2] = Double.NaN
+            }
+        }
+
+        prefetch(0)
+    }
+
+    /**
+     * prefetches street names of next maneuvers after user reached point with [routePointIndex]
+     * */
+    @Synchronized
+    fun onProgress(routePointIndex: Int) {
+        val stepIndex = mStepIndex?.getStepIndex(routePointIndex) ?: -1
+        if (stepIndex >= 0) {
+            prefetch(stepIndex + 1)
+        }
+    }
+
+    /**
+     * returns street name of maneuver point of step if it is already loaded
+     * */
+    @Synchronized
+    fun getStreetName(stepIndex: Int): String? = mStreetNames[stepIndex]
+
+    /**
+     * returns street name of next maneuver after point with [routePointIndex] if it is already loaded
+     * */
+    @Synchronized
+    fun getNextStreetName(routePointIndex: Int): String? {
+        val stepIndex = mStepIndex?.getStepIndex(routePointIndex) ?: -1
+        return if (stepIndex >= 0) mStreetNames[stepIndex + 1] else null
+    }
+
+    /**
+     * cancels running requests, loaded names are kept until route is replaced
+     * */
+    @Synchronized
+    fun cancel() {
+        mRouteVersion++
+        mRequests.values.forEach { disposable -> disposable.dispose() }
+        mRequests.clear()
+    }
+
+    /**
+     * cancels running requests and drops all loaded names
+     * */
+    @Synchronized
+    fun clear() {
+        cancel()
+        mStreetNames.clear()
+        mManeuverPoints = DoubleArray(0)
+        mStepIndex = null
+    }
+
+    private fun prefetch(fromStepIndex: Int) {
+        val toStepIndex = minOf(fromStepIndex + PREFETCH_COUNT, mStepIndex?.stepCount ?: 0)
+        for (stepIndex in fromStepIndex until toStepIndex) {
+            val latitude = mManeuverPoints[stepIndex * 2]
+            val longitude = mManeuverPoints[stepIndex * 2 + 1]
+            if (latitude.isNaN() || mStreetNames.containsKey(stepIndex) || mRequests.containsKey(stepIndex)) {
+                continue
+            }
+
+            val routeVersion = mRouteVersion
+            val disposable = mAddressRepository
+                .getAddress(latitude, longitude, RequestPriority.PREFETCH)
+                .subscribe({ response ->
+                    val streetName = response.routeName?.takeIf { name -> name.isNotEmpty() }
+                        ?: response.address
+                    onLoaded(routeVersion, stepIndex, if (response.isSuccessFull()) streetName else null)
+                }, {
+                    // prefetch is best effort, name is requested again on next progress
+                    onLoaded(routeVersion, stepIndex, null)
+                })
+
+            // cached names are delivered immediately
+            if (!disposable.isDisposed) {
+                mRequests[stepIndex] = disposable
+            }
+        }
+    }
+
+    @Synchronized
+    private fun onLoaded(routeVersion: Int, stepIndex: Int, streetName: String?) {
+        if (routeVersion != mRouteVersion) {
+            return
+        }
+        mRequests.remove(stepIndex)
+        if (!streetName.isNullOrEmpty()) {
+            mStreetNames[stepIndex] = streetName
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package org.neshan.navigation
+
+import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.schedulers.Schedulers
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.neshan.common.model.LatLng
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.enums.RoutingType
+import org.neshan.data.model.response.AddressDetailResponse
+import org.neshan.data.model.response.Distance
+import org.neshan.data.model.response.Duration
+import org.neshan.data.model.response.Leg
+import org.neshan.data.model.response.OverviewPolyline
+import org.neshan.data.model.response.Route
+import org.neshan.data.model.response.RoutingResponse
+import org.neshan.data.model.response.Step
+import org.neshan.data.network.ApiClient
+import org.neshan.data.network.RequestScheduler
+import org.neshan.data.util.PolylineEncoder
+import org.neshan.data.util.RouteGeometryDecoder
+
+class ReroutePrefetcherTest {
+
+    private class DirectionRequest(val startPoint: String, val bearing: Int)
+
+    private val mRequests = ArrayList<DirectionRequest>()
+
+    private val mResponse = RoutingResponse.success(
+        arrayListOf(Route(OverviewPolyline(""), arrayListOf()))
+    )
+
+    private val mApiClient = object : ApiClient {
+
+        override fun getAddress(lat: Double, lng: Double): Single<AddressDetailResponse> {
+            throw UnsupportedOperationException()
+        }
+
+        override fun getDirection(type: String, startPoint: String, endPoint: String, bearing: Int): Single<RoutingResponse> {
+            mRequests.add(DirectionRequest(startPoint, bearing))
+            return Single.just(mResponse)
+        }
+
+    }
+
+    // only prefetch requests are sent in these tests, other dependencies are not used
+    private val mModel = NavigationModel(
+        mApiClient, null, null, RequestScheduler(4, Schedulers.trampoline()), null, null, null
+    )
+
+    private val mEndPoint = LatLng(35.75, 51.45)
+
+    /**
+     * step from first point to last point of [points] (latitude, longitude pairs)
+     * */
+    private fun createStep(bearingAfter: Int, vararg points: Double): Step {
+        return Step("", "", Distance(0, ""), Duration(0, ""), bearingAfter, PolylineEncoder.encode(points))
+    }
+
+    private fun createLeg(vararg steps: Step): Leg {
+        return Leg("", Distance(0, ""), Duration(0, ""), arrayListOf(*steps))
+    }
+
+    /**
+     * north for about 1 km, right turn to east, then a slight bend which is not a turn
+     * */
+    private fun createTurningLeg(): Leg {
+        return createLeg(
+            createStep(0, 35.70, 51.40, 35.705, 51.40, 35.71, 51.40),
+            createStep(90, 35.71, 51.40, 35.71, 51.41),
+            createStep(100, 35.71, 51.41, 35.709, 51.42)
+        )
+    }
+
+    private fun setRoute(prefetcher: ReroutePrefetcher, leg: Leg) {
+        prefetcher.setRoute(leg, RouteGeometry.fromSteps(leg.steps), mEndPoint, RoutingType.CAR)
+    }
+
+    @Test
+    fun setRoute_prefetchesRouteStraightAfterTurn() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 10, 40.0)
+
+        setRoute(prefetcher, createTurningLeg())
+
+        // only the right turn is a decision point, user missing it keeps going north
+        assertEquals(1, mRequests.size)
+        val (latitude, longitude) = mRequests[0].startPoint.split(",").map { it.toDouble() }
+        assertEquals(35.71 + 40 / 111_320.0, latitude, 1e-7)
+        assertEquals(51.40, longitude, 1e-7)
+        assertEquals(0, mRequests[0].bearing)
+
+    }
+
+    @Test
+    fun setRoute_readsPointsFromRouteGeometry() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 10, 40.0)
+        val leg = createTurningLeg()
+
+        prefetcher.setRoute(leg, RouteGeometryDecoder.decode(leg.steps).blockingGet(), mEndPoint, RoutingType.CAR)
+
+        assertEquals(1, mRequests.size)
+        assertTrue(leg.steps.none { step -> step.isDecoded() })
+
+    }
+
+    @Test
+    fun setRoute_straightRoute_prefetchesNothing() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 10, 40.0)
+
+        setRoute(
+            prefetcher,
+            createLeg(
+                createStep(0, 35.70, 51.40, 35.71, 51.40),
+                createStep(20, 35.71, 51.40, 35.72, 51.404),
+                createStep(0, 35.72, 51.404, 35.73, 51.404)
+            )
+        )
+
+        assertEquals(0, mRequests.size)
+
+    }
+
+    @Test
+    fun setRoute_stopsAtBudget() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 1, 40.0)
+
+        // right turn to east, then left turn to north again
+        setRoute(
+            prefetcher,
+            createLeg(
+                createStep(0, 35.70, 51.40, 35.71, 51.40),
+                createStep(90, 35.71, 51.40, 35.71, 51.41),
+                createStep(0, 35.71, 51.41, 35.72, 51.41)
+            )
+        )
+
+        assertEquals(1, mRequests.size)
+        assertEquals(0, mRequests[0].bearing)
+
+    }
+
+    @Test
+    fun findRoute_matchesOnlyNearStartInSameDirection() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 10, 40.0)
+        setRoute(prefetcher, createTurningLeg())
+
+        val startPoint = LatLng(35.71 + 40 / 111_320.0, 51.40)
+
+        // moving east near start point, or north far from it
+        assertNull(prefetcher.findRoute(startPoint, 90f))
+        assertNull(prefetcher.findRoute(LatLng(35.72, 51.40), 0f))
+
+        assertSame(mResponse, prefetcher.findRoute(LatLng(35.7104, 51.4001), 350f))
+        // a prefetched route is served once
+        assertNull(prefetcher.findRoute(startPoint, 0f))
+
+    }
+
+    @Test
+    fun clear_dropsPrefetchedRoutes() {
+
+        val prefetcher = ReroutePrefetcher(mModel, 3, 10, 40.0)
+        setRoute(prefetcher, createTurningLeg())
+
+        prefetcher.clear()
+
+        assertNull(prefetcher.findRoute(LatLng(35.71 + 40 / 111_320.0, 51.40), 0f))
+
+    }
+
+}
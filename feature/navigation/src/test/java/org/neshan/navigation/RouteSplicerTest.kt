@@ -0,0 +1,112 @@
+package org.neshan.navigation
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.neshan.data.model.RouteGeometry
+import org.neshan.data.model.response.Distance
+import org.neshan.data.model.response.Duration
+import org.neshan.data.model.response.Leg
+import org.neshan.data.model.response.Step
+import org.neshan.data.util.PolylineEncoder
+
+class RouteSplicerTest {
+
+    /**
+     * step from first point to last point of [points] (latitude, longitude pairs)
+     * */
+    private fun createStep(vararg points: Double): Step {
+        return Step("", "", Distance(0, ""), Duration(0, ""), 0, PolylineEncoder.encode(points))
+    }
+
+    private fun createLeg(vararg steps: Step): Leg {
+        return Leg("", Distance(0, ""), Duration(0, ""), arrayListOf(*steps))
+    }
+
+    // steps of previous route, each one starts where previous step ends like api steps
+    private fun stepA() = createStep(35.700, 51.400, 35.705, 51.400, 35.710, 51.400)
+    private fun stepB() = createStep(35.710, 51.400, 35.710, 51.410)
+    private fun stepC() = createStep(35.710, 51.410, 35.715, 51.410, 35.720, 51.412, 35.725, 51.412)
+    private fun stepD() = createStep(35.725, 51.412, 35.725, 51.420)
+
+    // steps of rerouted routes from where user missed a turn
+    private fun stepX() = createStep(35.712, 51.400, 35.712, 51.405, 35.710, 51.410)
+    private fun stepY() = createStep(35.712, 51.400, 35.720, 51.400, 35.725, 51.420)
+    private fun stepZ() = createStep(35.716, 51.410, 35.720, 51.415, 35.725, 51.412)
+
+    private val mPreviousLeg = createLeg(stepA(), stepB(), stepC(), stepD())
+
+    private val mPreviousGeometry = RouteGeometry.fromSteps(mPreviousLeg.steps)
+
+    private fun assertGeometryEquals(expected: RouteGeometry, actual: RouteGeometry) {
+        assertEquals(expected.size, actual.size)
+        for (index in 0 until expected.size) {
+            assertEquals(expected.getLatitude(index), actual.getLatitude(index), 0.0)
+            assertEquals(expected.getLongitude(index), actual.getLongitude(index), 0.0)
+        }
+    }
+
+    @Test
+    fun splice_withoutSharedSteps_decodesAllSteps() {
+
+        val leg = createLeg(stepY())
+
+        val sharedStepCount = RouteSplicer.getSharedSuffixStepCount(mPreviousLeg, leg)
+        val geometry = RouteSplicer.splice(mPreviousLeg, mPreviousGeometry, leg, sharedStepCount).blockingGet()
+
+        assertEquals(0, sharedStepCount)
+        assertGeometryEquals(RouteGeometry.fromSteps(createLeg(stepY()).steps), geometry)
+
+    }
+
+    @Test
+    fun splice_partlySharedSuffix_copiesTailFromPreviousGeometry() {
+
+        val leg = createLeg(stepX(), stepC(), stepD())
+
+        val sharedStepCount = RouteSplicer.getSharedSuffixStepCount(mPreviousLeg, leg)
+        val geometry = RouteSplicer.splice(mPreviousLeg, mPreviousGeometry, leg, sharedStepCount).blockingGet()
+
+        assertEquals(2, sharedStepCount)
+        assertGeometryEquals(RouteGeometry.fromSteps(createLeg(stepX(), stepC(), stepD()).steps), geometry)
+        // shared steps are neither decoded for comparing nor for splicing
+        assertTrue(leg.steps.none { step -> step.isDecoded() })
+        assertTrue(mPreviousLeg.steps.none { step -> step.isDecoded() })
+
+    }
+
+    @Test
+    fun splice_fullySharedSuffix_copiesPreviousGeometry() {
+
+        val leg = createLeg(stepA(), stepB(), stepC(), stepD())
+
+        val sharedStepCount = RouteSplicer.getSharedSuffixStepCount(mPreviousLeg, leg)
+        val geometry = RouteSplicer.splice(mPreviousLeg, mPreviousGeometry, leg, sharedStepCount).blockingGet()
+
+        assertEquals(4, sharedStepCount)
+        assertGeometryEquals(mPreviousGeometry, geometry)
+
+    }
+
+    @Test
+    fun splice_previousGeometryIsSpliced() {
+
+        val splicedLeg = createLeg(stepX(), stepC(), stepD())
+        val splicedGeometry = RouteSplicer.splice(
+            mPreviousLeg,
+            mPreviousGeometry,
+            splicedLeg,
+            RouteSplicer.getSharedSuffixStepCount(mPreviousLeg, splicedLeg)
+        ).blockingGet()
+
+        // user misses a turn again on the rerouted route, new route rejoins it at last step
+        val leg = createLeg(stepZ(), stepD())
+        val sharedStepCount = RouteSplicer.getSharedSuffixStepCount(splicedLeg, leg)
+        val geometry = RouteSplicer.splice(splicedLeg, splicedGeometry, leg, sharedStepCount).blockingGet()
+
+        assertEquals(1, sharedStepCount)
+        assertGeometryEquals(RouteGeometry.fromSteps(createLeg(stepZ(), stepD()).steps), geometry)
+
+    }
+
+}
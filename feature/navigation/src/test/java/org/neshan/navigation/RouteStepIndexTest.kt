@@ -0,0 +1,85 @@
+package org.neshan.navigation
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.neshan.data.model.response.Distance
+import org.neshan.data.model.response.Duration
+import org.neshan.data.model.response.Leg
+import org.neshan.data.model.response.Step
+
+class RouteStepIndexTest {
+
+    /**
+     * leg with steps of given point counts, all points are (0, 0) which is encoded as "??"
+     * */
+    private fun createLeg(vararg pointCounts: Int): Leg {
+        val steps = pointCounts.map { pointCount ->
+            Step("", "", Distance(0, ""), Duration(0, ""), 0, "??".repeat(pointCount))
+        }
+        return Leg("", Distance(0, ""), Duration(0, ""), ArrayList(steps))
+    }
+
+    @Test
+    fun getStepStartIndex_isSumOfPreviousStepPointCounts() {
+
+        val stepIndex = RouteStepIndex(createLeg(3, 1, 4))
+
+        assertEquals(3, stepIndex.stepCount)
+        assertEquals(0, stepIndex.getStepStartIndex(0))
+        assertEquals(3, stepIndex.getStepStartIndex(1))
+        assertEquals(4, stepIndex.getStepStartIndex(2))
+        assertEquals(3, stepIndex.getStepEndIndex(0))
+        assertEquals(8, stepIndex.getStepEndIndex(2))
+
+    }
+
+    @Test
+    fun init_doesNotDecodeSteps() {
+
+        val leg = createLeg(3, 1, 4)
+
+        RouteStepIndex(leg)
+
+        assertTrue(leg.steps.none { step -> step.isDecoded() })
+
+    }
+
+    @Test
+    fun getStepIndex_returnsStepContainingPoint() {
+
+        val stepIndex = RouteStepIndex(createLeg(3, 1, 4))
+
+        assertEquals(0, stepIndex.getStepIndex(0))
+        assertEquals(0, stepIndex.getStepIndex(2))
+        assertEquals(1, stepIndex.getStepIndex(3))
+        assertEquals(2, stepIndex.getStepIndex(4))
+        assertEquals(2, stepIndex.getStepIndex(7))
+
+    }
+
+    @Test
+    fun getStepIndex_outsideRoute() {
+
+        val stepIndex = RouteStepIndex(createLeg(3, 1, 4))
+
+        assertEquals(-1, stepIndex.getStepIndex(-1))
+        // points after route belong to last step
+        assertEquals(2, stepIndex.getStepIndex(8))
+        assertEquals(-1, RouteStepIndex(createLeg()).getStepIndex(0))
+
+    }
+
+    @Test
+    fun getStepIndex_skipsStepsWithoutPoints() {
+
+        val stepIndex = RouteStepIndex(createLeg(2, 0, 0, 2))
+
+        assertEquals(2, stepIndex.getStepStartIndex(1))
+        assertEquals(2, stepIndex.getStepStartIndex(3))
+        assertEquals(0, stepIndex.getStepIndex(1))
+        assertEquals(3, stepIndex.getStepIndex(2))
+
+    }
+
+}